@@ -0,0 +1,34 @@
+package frc.robot.benchmarks;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import frc.robot.subsystems.FieldLayout;
+
+public class BenchmarkHardware {
+
+    private static boolean initialized = false;
+
+    //#INIT
+    //This method starts the simulation HAL (joysticks, and the RobotSim models behind the sim IO classes) and a local NetworkTables server
+    //Robot time is paused so timers and frame ages do not move while a benchmark runs
+    public static synchronized void init() {
+        if (initialized) return;
+
+        if (!HAL.initialize(500, 0)) {
+            throw new IllegalStateException("Failed to initialize the HAL");
+        }
+        NetworkTableInstance.getDefault().startServer();
+        SimHooks.pauseTiming();
+
+        DriverStationSim.setDsAttached(true);
+        DriverStationSim.setEnabled(true);
+        DriverStationSim.notifyNewData();
+
+        //Tag positions for the limelight ranging
+        FieldLayout.load();
+
+        initialized = true;
+    }
+}
@@ -0,0 +1,55 @@
+package frc.robot.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import edu.wpi.first.wpilibj.simulation.XboxControllerSim;
+import frc.robot.DriverInput;
+import frc.robot.subsystems.DriveTrain;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DriveBenchmark {
+
+    private XboxControllerSim controller;
+
+    @Setup
+    public void setup() {
+        BenchmarkHardware.init();
+        DriveTrain.resetDrive();
+
+        //Half forward with a little turn, past the deadband so every shaping stage does work
+        controller = new XboxControllerSim(0);
+        controller.setLeftY(-0.5);
+        controller.setRightX(0.3);
+        DriverStationSim.notifyNewData();
+        DriverInput.sample();
+    }
+
+    //#SAMPLE
+    @Benchmark
+    public void sample() {
+        DriverInput.sample();
+    }
+
+    //#DRIVE
+    @Benchmark
+    public void drive() {
+        DriveTrain.drive();
+    }
+
+    //#ENCODERMATH
+    @Benchmark
+    public void encoderMath() {
+        DriveTrain.encoderMath();
+    }
+}
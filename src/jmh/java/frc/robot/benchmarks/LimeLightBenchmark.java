@@ -0,0 +1,96 @@
+package frc.robot.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.PubSubOption;
+import frc.robot.io.VisionIOLimelight;
+import frc.robot.subsystems.LimeLight;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LimeLightBenchmark {
+
+    //Horizontal offset of the benchmark frame
+    private static final double kFrameX = 2.5;
+    //Offsets fed to the turn shaping, on both sides of the 35% cap
+    private static final double[] kOffsets = {-20, -7, -2.5, 0, 1, 4, 7.5, 25};
+
+    private int offsetIndex = 0;
+
+    private LimeLight limeLight;
+
+    @Setup
+    public void setup() throws InterruptedException {
+        BenchmarkHardware.init();
+        //The NetworkTables IO the robot uses, instead of the RobotSim one simulation would pick
+        limeLight = new LimeLight(new VisionIOLimelight());
+
+        //One frame of the speaker tag; time is paused so it never goes stale
+        NetworkTable table = NetworkTableInstance.getDefault().getTable("limelight");
+        PubSubOption keep = PubSubOption.keepDuplicates(true);
+        table.getDoubleTopic("tv").publish(keep).set(1);
+        table.getDoubleTopic("tx").publish(keep).set(kFrameX);
+        table.getDoubleTopic("ty").publish(keep).set(5);
+        table.getDoubleTopic("ta").publish(keep).set(1);
+        table.getDoubleTopic("tid").publish(keep).set(7);
+        table.getDoubleTopic("cl").publish(keep).set(10);
+        DoublePublisher tl = table.getDoubleTopic("tl").publish(keep);
+        tl.set(25);
+
+        //The frame arrives on the NetworkTables listener thread
+        for (int i = 0; i < 100 && !limeLight.isFresh(); i++) {
+            Thread.sleep(10);
+            limeLight.postValues();
+        }
+        if (!limeLight.isFresh()) {
+            throw new IllegalStateException("No limelight frame arrived");
+        }
+    }
+
+    //#ESTIMATEDIST
+    @Benchmark
+    public double estimateDist() {
+        return limeLight.estimateDist();
+    }
+
+    //#TURNPOWER
+    @Benchmark
+    public double turnPower() {
+        return LimeLight.turnPower(nextOffset());
+    }
+
+    //#TURNPOWERPOW
+    //The Math.pow version turnPower replaced, kept as the baseline it is compared to
+    @Benchmark
+    public double turnPowerPow() {
+        double turnPower = -Math.pow((nextOffset() * .1), 3);
+        if (turnPower < -.35)
+            turnPower = -.35;
+        else if (turnPower > .35)
+            turnPower = .35;
+        return turnPower;
+    }
+
+    private double nextOffset() {
+        offsetIndex = (offsetIndex + 1) & (kOffsets.length - 1);
+        return kOffsets[offsetIndex];
+    }
+
+    //#POSTVALUES
+    @Benchmark
+    public void postValues() {
+        limeLight.postValues();
+    }
+}
@@ -0,0 +1,60 @@
+package frc.robot.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import frc.robot.util.Telemetry;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TelemetryBenchmark {
+
+    //About as many values as the robot puts on the dashboard every loop
+    private static final int kSignalCount = 16;
+    private static final String[] kKeys = new String[kSignalCount];
+
+    private final int[] signals = new int[kSignalCount];
+    private double value = 0;
+
+    @Setup
+    public void setup() {
+        BenchmarkHardware.init();
+        for (int i = 0; i < kSignalCount; i++) {
+            kKeys[i] = "Benchmark/Value" + i;
+            signals[i] = Telemetry.addNumber("Benchmark/Signal" + i, 0.01, 50);
+        }
+    }
+
+    //#TELEMETRY
+    //One loop of changing values through Telemetry, with 20 ms of robot time between loops so every signal is due
+    @Benchmark
+    public void telemetry() {
+        value += 1;
+        for (int i = 0; i < kSignalCount; i++) {
+            Telemetry.setNumber(signals[i], value + i);
+        }
+        Telemetry.periodic();
+        SimHooks.stepTiming(0.02);
+    }
+
+    //#SMARTDASHBOARD
+    //The same loop through SmartDashboard.putNumber, which looks every key up again
+    @Benchmark
+    public void smartDashboard() {
+        value += 1;
+        for (int i = 0; i < kSignalCount; i++) {
+            SmartDashboard.putNumber(kKeys[i], value + i);
+        }
+        SimHooks.stepTiming(0.02);
+    }
+}
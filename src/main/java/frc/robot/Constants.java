@@ -14,22 +14,47 @@ package frc.robot;
  */
 public final class Constants {
 
+ //Defaults for Tuning, the values in use come from tuning.properties in the deploy directory
+
  //Drive train motor IDs
- public static int leftPID = 2;
- public static int rightPID = 3;
- public static int leftFID = 4;
- public static int rightFID = 5;
+ public static final int leftPID = 2;
+ public static final int rightPID = 3;
+ public static final int leftFID = 4;
+ public static final int rightFID = 5;
 
  //Manipulator motor IDs
- public static int leftBaseID = 6;
- public static int rightBaseID = 7;
- public static int ampID = 8;
- public static int intakeID = 9;
+ public static final int leftBaseID = 6;
+ public static final int rightBaseID = 7;
+ public static final int ampID = 8;
+ public static final int intakeID = 9;
  
  //Digital inputs DIO ports
- public static int beamSensorID = 0;
- public static int magneticSensorID = 1;
+ public static final int beamSensorID = 0;
+ public static final int magneticSensorID = 1;
 
  //Miscellaneus manipulator IDs
- public static int shootPosition = 2;
+ public static final int shootPosition = 2;
+
+ //Manipulator pivot
+ //Pivot setpoints (base motor rotations from the magnetic sensor)
+ public static final double pivotIntakePosition = 14;
+ public static final double pivotStowPosition = 4;
+ //Base motor rotations per pivot rotation
+ public static final double pivotGearRatio = 60;
+ //Angle of the pivot from horizontal when it sits on the magnetic sensor (degrees)
+ public static final double pivotHomeAngle = -10;
+
+ //Drive train measurements
+ //Motor rotations per wheel rotation
+ public static final double driveGearRatio = 8.45;
+ //Wheel circumference (inches)
+ public static final double wheelCircumference = 18;
+ //Distance between the centers of the left and right wheels (inches)
+ public static final double trackWidth = 22.0;
+
+ //Limelight mounting
+ //Physical distance of the limelight lens from the ground (inches)
+ public static final double limelightHeight = 11.25;
+ //Physical vertical angle of the lens from the mount (degrees)
+ public static final double limelightAngle = 41.9;
 }
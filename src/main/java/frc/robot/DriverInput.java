@@ -0,0 +1,165 @@
+package frc.robot;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import frc.robot.io.InputLog;
+import frc.robot.io.LoggableInputs;
+
+public class DriverInput {
+
+    //Longest time step handed to the input shapers, so a stall does not let the slew rate stages jump (seconds)
+    private static final double kMaxDt = 0.1;
+
+    //Axes (-1 to 1, triggers 0 to 1)
+    private static double leftY = 0;
+    private static double rightX = 0;
+    private static double leftTrigger = 0;
+    private static double rightTrigger = 0;
+
+    //Buttons
+    private static boolean aButton = false;
+    private static boolean bButton = false;
+    private static boolean xButton = false;
+    private static boolean yButton = false;
+    private static boolean leftBumper = false;
+    private static boolean rightBumper = false;
+
+    //Match mode from the driver station
+    private static boolean enabled = false;
+    private static boolean autonomous = false;
+    private static boolean test = false;
+
+    //The whole sample as one record in the match log, so log replay drives the robot with the recorded sticks and mode
+    private static final LoggableInputs record = new LoggableInputs() {
+        @Override
+        public int size() {
+            return 13;
+        }
+
+        @Override
+        public void write(double[] out) {
+            out[0] = leftY;
+            out[1] = rightX;
+            out[2] = leftTrigger;
+            out[3] = rightTrigger;
+            out[4] = aButton ? 1 : 0;
+            out[5] = bButton ? 1 : 0;
+            out[6] = xButton ? 1 : 0;
+            out[7] = yButton ? 1 : 0;
+            out[8] = leftBumper ? 1 : 0;
+            out[9] = rightBumper ? 1 : 0;
+            out[10] = enabled ? 1 : 0;
+            out[11] = autonomous ? 1 : 0;
+            out[12] = test ? 1 : 0;
+        }
+
+        //Only called in log replay: the recorded mode is handed to the simulated driver station,
+        //so the robot switches modes where it did in the match (from the next TimedRobot loop)
+        @Override
+        public void read(double[] in) {
+            leftY = in[0];
+            rightX = in[1];
+            leftTrigger = in[2];
+            rightTrigger = in[3];
+            aButton = in[4] != 0;
+            bButton = in[5] != 0;
+            xButton = in[6] != 0;
+            yButton = in[7] != 0;
+            leftBumper = in[8] != 0;
+            rightBumper = in[9] != 0;
+            boolean modeChanged = enabled != (in[10] != 0) || autonomous != (in[11] != 0) || test != (in[12] != 0);
+            enabled = in[10] != 0;
+            autonomous = in[11] != 0;
+            test = in[12] != 0;
+            if (modeChanged) {
+                DriverStationSim.setDsAttached(true);
+                DriverStationSim.setEnabled(enabled);
+                DriverStationSim.setAutonomous(autonomous);
+                DriverStationSim.setTest(test);
+                DriverStationSim.notifyNewData();
+            }
+        }
+    };
+    private static final int kRecordHandle = InputLog.register("Driver", record);
+
+    //Time since the last sample (seconds)
+    private static double dt = 0.02;
+    private static double lastSampleTime = 0;
+
+    //#SAMPLE
+    //This method reads the controller, it is called once at the start of every loop by SensorSnapshot before anything uses the inputs
+    //It runs in every mode, so the recorded samples line up one for one with the other logged inputs
+    public static void sample() {
+        leftY = IO.dController.getLeftY();
+        rightX = IO.dController.getRightX();
+        leftTrigger = IO.dController.getLeftTriggerAxis();
+        rightTrigger = IO.dController.getRightTriggerAxis();
+
+        aButton = IO.dController.getAButton();
+        bButton = IO.dController.getBButton();
+        xButton = IO.dController.getXButton();
+        yButton = IO.dController.getYButton();
+        leftBumper = IO.dController.getLeftBumper();
+        rightBumper = IO.dController.getRightBumper();
+
+        enabled = DriverStation.isEnabled();
+        autonomous = DriverStation.isAutonomous();
+        test = DriverStation.isTest();
+        InputLog.process(kRecordHandle);
+
+        double now = SensorSnapshot.getTimestamp();
+        dt = lastSampleTime == 0 ? 0.02 : Math.min(now - lastSampleTime, kMaxDt);
+        lastSampleTime = now;
+    }
+
+    //#GETTERS
+    //Values from the last sample()
+    public static double getLeftY() {
+        return leftY;
+    }
+
+    public static double getRightX() {
+        return rightX;
+    }
+
+    public static double getLeftTrigger() {
+        return leftTrigger;
+    }
+
+    public static double getRightTrigger() {
+        return rightTrigger;
+    }
+
+    public static boolean getAButton() {
+        return aButton;
+    }
+
+    public static boolean getBButton() {
+        return bButton;
+    }
+
+    public static boolean getXButton() {
+        return xButton;
+    }
+
+    public static boolean getYButton() {
+        return yButton;
+    }
+
+    public static boolean getLeftBumper() {
+        return leftBumper;
+    }
+
+    public static boolean getRightBumper() {
+        return rightBumper;
+    }
+
+    public static double getDt() {
+        return dt;
+    }
+
+    //True while teleop is enabled, as of the last sample()
+    public static boolean isTeleopEnabled() {
+        return enabled && !autonomous && !test;
+    }
+}
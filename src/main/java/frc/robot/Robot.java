@@ -5,10 +5,30 @@
 package frc.robot;
 
 import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.smartdashboard.SendableChooser;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.commands.AutoAlign;
+import frc.robot.commands.AutoRoutines;
+import frc.robot.io.InputLog;
+import frc.robot.sim.RobotSim;
 import frc.robot.subsystems.DriveTrain;
+import frc.robot.subsystems.FieldLayout;
+import frc.robot.subsystems.LimeLight;
 import frc.robot.subsystems.Manipulator;
+import frc.robot.subsystems.MotionHealth;
+import frc.robot.subsystems.NoteTracker;
+import frc.robot.subsystems.Pivot;
+import frc.robot.subsystems.Shooter;
+import frc.robot.subsystems.PoseEstimator;
+import frc.robot.subsystems.PowerGovernor;
+import frc.robot.util.CanBudget;
+import frc.robot.util.DataLogger;
+import frc.robot.util.LoopProfiler;
+import frc.robot.util.MotorConfigManager;
+import frc.robot.util.RateGroup;
+import frc.robot.util.Telemetry;
 
 
 
@@ -22,18 +42,87 @@ import frc.robot.subsystems.Manipulator;
 public class Robot extends TimedRobot {
   private Command m_autonomousCommand;
 
-  //#AUTOMODE
-  //This function selects which auto to use based on a number input
-  public static void autoMode(int autoSelector) {
-    if (autoSelector == 1) {
-      Manipulator.autoManipulator(false, true, true, false);
-      DriveTrain.autoDrive(0.3, 24);
-      Manipulator.autoManipulator(true, true, false, false);
-      DriveTrain.autoDrive(0.3, 24);
-      Manipulator.autoManipulator(false, true, true, false);
-      DriveTrain.autoDrive(0.3, 36);
-    }
+  private final LimeLight limeLight = new LimeLight();
+
+  //Turns to the speaker tag and drives to the shooting distance while the driver holds the left trigger
+  private final AutoAlign autoAlign = new AutoAlign(limeLight);
+
+  //Profiler stage for the main TimedRobot callback (mode changes, SmartDashboard and LiveWindow), the rate groups have their own
+  private static final int kMainStage = LoopProfiler.addStage("Rate/Main");
+  private static final long kMainPeriodNs = 20_000_000L;
+
+  //RATE GROUPS
+  //Periods and phase offsets (seconds), the main TimedRobot loop still runs every 20 ms at offset 0
+  //Each run of a group is one LoopProfiler loop, timed and checked for overruns against the group's own period
+  //The offsets keep the slow groups off the control ticks (every 10 ms) and off each other
+  private static final double kControlPeriod = 0.01;
+  private static final double kVisionPeriod = 0.01;
+  private static final double kVisionOffset = 0.005;
+  private static final double kPowerOffset = 0.0025;
+  private static final double kTelemetryPeriod = 0.02;
+  private static final double kTelemetryOffset = 0.0075;
+  private static final double kDiagnosticsPeriod = 0.2;
+  private static final double kDiagnosticsOffset = 0.0125;
+
+  //Sensors, commands and outputs, so a new reading reaches the motors within 10 ms
+  //The drive leaders and the amp wheels send their encoder frames every 10 ms to match (see the IO classes),
+  //slower signals like the intake and pivot currents are simply read again until their next frame
+  //Every input is read through the IO layer first and every output sent last, so the jobs in between only
+  //work on recorded values and a match log can be replayed through them
+  private final RateGroup control = new RateGroup("Control", kControlPeriod, 0)
+      // Live tuning changes are swapped in between runs, so every job sees the same values within one
+      .add("Tuning.applyPending", Tuning::applyPending)
+      // Reads every sensor, encoder and the controller once, every job below works from this snapshot
+      // Sampled in every mode, so the driver input log record lines up with the other inputs
+      .add("SensorSnapshot.sample", SensorSnapshot::sample)
+      // Stall, jam and slip events from the snapshot, the outputs at the end of this loop already react to them
+      .add("MotionHealth.update", MotionHealth::update)
+      .add("DriveTrain.encoderMath", DriveTrain::encoderMath)
+      .add("PoseEstimator.update", PoseEstimator::update)
+      .add("NoteTracker.periodic", NoteTracker::periodic)
+      .add("DriveTrain.drive", teleopOnly(this::driveOrAlign))
+      .add("Manipulator.controlManipulator", teleopOnly(Manipulator::controlManipulator))
+      // Runs the Scheduler.  This is responsible for polling buttons, adding newly-scheduled
+      // commands, running already-scheduled commands, removing finished or interrupted commands,
+      // and running subsystem periodic() methods.
+      .add("CommandScheduler.run", CommandScheduler.getInstance()::run)
+      // Homes the pivot or sends its setpoint, after every command and control method has picked one
+      .add("Pivot.periodic", Pivot::periodic)
+      // Moves a shot along from the amp wheel velocity
+      .add("Shooter.periodic", Shooter::periodic)
+      .add("DriveTrain.applyOutputs", DriveTrain::applyOutputs)
+      .add("Manipulator.applyOutputs", Manipulator::applyOutputs)
+      .add("Manipulator.manipulatorDashboard", Manipulator::manipulatorDashboard)
+      // Hands this run's signals to the log writer thread, so every control sample is in the match log
+      .add("DataLogger.commit", Robot::commitLog);
+
+  //The limelight runs at about 90 frames per second, so every frame is picked up within 10 ms of arriving
+  //Half a period after control, so the pose history already has the odometry the frame is fused with
+  private final RateGroup vision = new RateGroup("Vision", kVisionPeriod, kVisionOffset)
+      .add("LimeLight.postValues", limeLight::postValues);
+
+  //Shares the current budget out by priority at the rate of the current (Status 1) frames
+  private final RateGroup power = new RateGroup("Power", PowerGovernor.kPeriod, kPowerOffset)
+      .add("PowerGovernor.periodic", PowerGovernor::periodic);
+
+  //Dashboard values, at the rate of the fastest signal (50 Hz), Telemetry holds each signal to its own rate
+  private final RateGroup telemetry = new RateGroup("Telemetry", kTelemetryPeriod, kTelemetryOffset)
+      .add("Telemetry.periodic", Telemetry::periodic);
+
+  //Puts back status frame rates on any motor controller that rebooted
+  private final RateGroup diagnostics = new RateGroup("Diagnostics", kDiagnosticsPeriod, kDiagnosticsOffset)
+      .add("MotorConfigManager.checkForResets", MotorConfigManager::checkForResets);
+
+  //Wraps a job so it only runs while teleop is enabled (as of the snapshot), made once when the group is built
+  private static Runnable teleopOnly(Runnable job) {
+    return () -> {
+      if (DriverInput.isTeleopEnabled()) job.run();
+    };
   }
+
+  //Every autonomous routine is built once in robotInit, autonomousInit only picks one
+  private SendableChooser<Command> autoChooser;
+
   /**
    * This function is run when the robot is first started up and should be used for any
    * initialization code.
@@ -44,26 +133,54 @@ public class Robot extends TimedRobot {
     // autonomous chooser on the dashboard.
    DriveTrain.resetDrive();
    Manipulator.initializeManipulator();
+   // Configures every motor controller in parallel, flashing only the ones whose config changed
+   MotorConfigManager.applyAll();
+   CanBudget.report();
+   // AprilTag positions for vision ranging, from src/main/deploy
+   FieldLayout.load();
+   // Where the robot is on the field is not known until the limelight first sees a tag
+   PoseEstimator.clearPose();
+
+   // Tuning values from src/main/deploy are already loaded, this lets the dashboard change them live
+   Tuning.startLiveUpdates();
+
+   autoChooser = AutoRoutines.createChooser(limeLight);
+   SmartDashboard.putData("Auto Routine", autoChooser);
+
+   // Starts recording every registered signal to a .wpilog file
+   DataLogger.start();
+
+   // Everything is set up, the rate groups start with the first loop
+   control.start(this);
+   vision.start(this);
+   power.start(this);
+   telemetry.start(this);
+   diagnostics.start(this);
   }
 
   /**
-   * This function is called every 20 ms, no matter the mode. Use this for items like diagnostics
-   * that you want ran during disabled, autonomous, teleoperated and test.
-   *
-   * <p>This runs after the mode specific periodic functions, but before LiveWindow and
-   * SmartDashboard integrated updating.
+   * This function is called every 20 ms, no matter the mode. The robot's work runs in the rate
+   * groups started at the end of robotInit instead, each at its own period.
    */
   @Override
-  public void robotPeriodic() {
+  public void robotPeriodic() {}
 
-    DriveTrain.encoderMath();
-    Manipulator.manipulatorDashboard();
+  /**
+   * Wraps the main TimedRobot callback so the profiler sees the mode periodic, robotPeriodic and the
+   * SmartDashboard/LiveWindow updates as one loop. The rate groups profile themselves.
+   */
+  @Override
+  protected void loopFunc() {
+    LoopProfiler.beginLoop();
+    super.loopFunc();
+    LoopProfiler.endLoop(kMainStage, kMainPeriodNs);
+  }
 
-    // Runs the Scheduler.  This is responsible for polling buttons, adding newly-scheduled
-    // commands, running already-scheduled commands, removing finished or interrupted commands,
-    // and running subsystem periodic() methods.  This must be called from the robot's periodic
-    // block in order for anything in the Command-based framework to work.
-    CommandScheduler.getInstance().run();
+  //Last job of the control group: the stage times of every run since the last commit, then the frame itself
+  //A group's own time is recorded when it ends, so the control group's shows up in the next frame
+  private static void commitLog() {
+    LoopProfiler.logStages();
+    DataLogger.commit();
   }
 
   /** This function is called once each time the robot enters Disabled mode. */
@@ -73,9 +190,10 @@ public class Robot extends TimedRobot {
   @Override
   public void disabledPeriodic() {}
 
-  /** This autonomous runs the autonomous command selected by your {@link RobotContainer} class. */
+  /** This autonomous runs the autonomous command selected on the dashboard. */
   @Override
   public void autonomousInit() {
+    m_autonomousCommand = autoChooser.getSelected();
 
     // schedule the autonomous command (example)
     if (m_autonomousCommand != null) {
@@ -86,8 +204,7 @@ public class Robot extends TimedRobot {
   /** This function is called periodically during autonomous. */
   @Override
   public void autonomousPeriodic() {
-    autoMode(1);
-
+    // The selected routine runs from the CommandScheduler in the control rate group
   }
 
   @Override
@@ -99,17 +216,37 @@ public class Robot extends TimedRobot {
     if (m_autonomousCommand != null) {
       m_autonomousCommand.cancel();
     }
+    DriveTrain.resetInputs();
   }
 
   /** This function is called periodically during operator control. */
   @Override
   public void teleopPeriodic() {
-    DriveTrain.drive();
+    // Driving and the manipulator run in the control rate group
+  }
 
-    Manipulator.controlManipulator();
+  /**
+   * Drives from the sticks, unless the driver holds the left trigger: then the AutoAlign command
+   * has the drive train until it lines up, runs out of time or the trigger is let go.
+   */
+  private void driveOrAlign() {
+    boolean alignHeld = DriverInput.getLeftTrigger() > 0.5;
+    if (alignHeld && !alignStarted) {
+      autoAlign.schedule();
+      alignStarted = true;
+    } else if (!alignHeld && alignStarted) {
+      autoAlign.cancel();
+      alignStarted = false;
+      // The sticks take over from standing still
+      DriveTrain.resetInputs();
+    }
 
+    if (!autoAlign.isScheduled()) DriveTrain.drive();
   }
 
+  //True from the trigger press until it is let go, so one press only aligns once
+  private boolean alignStarted = false;
+
   @Override
   public void testInit() {
     // Cancels all running commands at the start of test mode.
@@ -122,9 +259,14 @@ public class Robot extends TimedRobot {
 
   /** This function is called once when the robot is first started up. */
   @Override
-  public void simulationInit() {}
+  public void simulationInit() {
+    // A log replay gets its inputs from the log, so the models are left out
+    if (!InputLog.isReplaying()) RobotSim.init();
+  }
 
   /** This function is called periodically whilst in simulation. */
   @Override
-  public void simulationPeriodic() {}
+  public void simulationPeriodic() {
+    if (!InputLog.isReplaying()) RobotSim.update(getPeriod());
+  }
 }
@@ -0,0 +1,28 @@
+package frc.robot;
+
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.subsystems.DriveTrain;
+import frc.robot.subsystems.Manipulator;
+
+public class SensorSnapshot {
+
+    //FPGA time the snapshot was taken (seconds)
+    private static double timestamp = 0;
+
+    //#SAMPLE
+    //This method fills in the preallocated inputs of every IO and the driver input, called first in every control loop
+    //The subsystems only read those afterwards, none of them reads the hardware again until the next snapshot
+    public static void sample() {
+        timestamp = Timer.getFPGATimestamp();
+        DriveTrain.updateInputs();
+        Manipulator.updateInputs();
+        DriverInput.sample();
+    }
+
+    //#GETTIMESTAMP
+    //Robot time of the current snapshot, the "now" for everything worked out from it
+    //Code on the control loop uses this instead of reading the FPGA clock itself
+    public static double getTimestamp() {
+        return timestamp;
+    }
+}
@@ -0,0 +1,298 @@
+package frc.robot;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicReference;
+
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableEvent;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.NetworkTableValue;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+
+public final class Tuning {
+
+    //File in the deploy directory the values are read from
+    private static final String kFileName = "tuning.properties";
+    //NetworkTables table the live values are published to and read back from
+    private static final String kTableName = "Tuning";
+    //Set this entry to true to read the file again
+    private static final String kReloadKey = "Reload";
+
+    //#HARDWARECONFIG
+    //CAN IDs and DIO ports, only read at startup because every controller and input is made once
+    public static final class HardwareConfig {
+        public final int leftPID, rightPID, leftFID, rightFID;
+        public final int leftBaseID, rightBaseID, ampID, intakeID;
+        public final int beamSensorID, magneticSensorID;
+
+        HardwareConfig(Source s) {
+            leftPID = s.getInt("hardware.leftPID", Constants.leftPID, 1, 62);
+            rightPID = s.getInt("hardware.rightPID", Constants.rightPID, 1, 62);
+            leftFID = s.getInt("hardware.leftFID", Constants.leftFID, 1, 62);
+            rightFID = s.getInt("hardware.rightFID", Constants.rightFID, 1, 62);
+            leftBaseID = s.getInt("hardware.leftBaseID", Constants.leftBaseID, 1, 62);
+            rightBaseID = s.getInt("hardware.rightBaseID", Constants.rightBaseID, 1, 62);
+            ampID = s.getInt("hardware.ampID", Constants.ampID, 1, 62);
+            intakeID = s.getInt("hardware.intakeID", Constants.intakeID, 1, 62);
+            beamSensorID = s.getInt("hardware.beamSensorID", Constants.beamSensorID, 0, 9);
+            magneticSensorID = s.getInt("hardware.magneticSensorID", Constants.magneticSensorID, 0, 9);
+
+            int[] can = {leftPID, rightPID, leftFID, rightFID, leftBaseID, rightBaseID, ampID, intakeID};
+            for (int i = 0; i < can.length; i++) {
+                for (int j = i + 1; j < can.length; j++) {
+                    if (can[i] == can[j]) s.error("CAN ID " + can[i] + " is used twice");
+                }
+            }
+            if (beamSensorID == magneticSensorID) s.error("DIO " + beamSensorID + " is used twice");
+        }
+    }
+
+    //#DRIVECONFIG
+    public static final class DriveConfig {
+        //Motor rotations per wheel rotation
+        public final double gearRatio;
+        //Wheel circumference (inches)
+        public final double wheelCircumference;
+        //Distance between the centers of the left and right wheels (inches)
+        public final double trackWidth;
+
+        DriveConfig(Source s) {
+            gearRatio = s.get("drive.gearRatio", Constants.driveGearRatio, 1, 30);
+            wheelCircumference = s.get("drive.wheelCircumference", Constants.wheelCircumference, 5, 40);
+            trackWidth = s.get("drive.trackWidth", Constants.trackWidth, 10, 40);
+        }
+    }
+
+    //#MANIPULATORCONFIG
+    public static final class ManipulatorConfig {
+        //Percent outputs
+        public final double intakeSpeed;
+        public final double feedSpeed;
+        public final double manualPivotSpeed;
+        public final double homingSpeed;
+        public final double speakerOutput;
+        public final double ampOutput;
+        //How far the right trigger has to be pulled to move the pivot (0 to 1)
+        public final double triggerThreshold;
+        //Pivot setpoints (base motor rotations from the magnetic sensor)
+        public final double shootPosition;
+        public final double intakePosition;
+        public final double stowPosition;
+        //Base motor rotations per pivot rotation, and the pivot angle on the magnetic sensor (degrees from horizontal)
+        public final double pivotGearRatio;
+        public final double pivotHomeAngle;
+
+        ManipulatorConfig(Source s) {
+            intakeSpeed = s.get("manipulator.intakeSpeed", 0.4, 0, 1);
+            feedSpeed = s.get("manipulator.feedSpeed", 0.4, 0, 1);
+            manualPivotSpeed = s.get("manipulator.manualPivotSpeed", 0.3, 0, 1);
+            homingSpeed = s.get("manipulator.homingSpeed", 0.3, 0.05, 1);
+            speakerOutput = s.get("manipulator.speakerOutput", 1.0, 0, 1);
+            ampOutput = s.get("manipulator.ampOutput", 0.3, 0, 1);
+            triggerThreshold = s.get("manipulator.triggerThreshold", 0.4, 0.05, 1);
+            shootPosition = s.get("manipulator.shootPosition", Constants.shootPosition, 0, 60);
+            intakePosition = s.get("manipulator.intakePosition", Constants.pivotIntakePosition, 0, 60);
+            stowPosition = s.get("manipulator.stowPosition", Constants.pivotStowPosition, 0, 60);
+            pivotGearRatio = s.get("manipulator.pivotGearRatio", Constants.pivotGearRatio, 1, 500);
+            pivotHomeAngle = s.get("manipulator.pivotHomeAngle", Constants.pivotHomeAngle, -90, 90);
+        }
+    }
+
+    //#VISIONCONFIG
+    public static final class VisionConfig {
+        //Physical distance of the limelight lens from the ground (inches)
+        public final double lensHeight;
+        //Physical vertical angle of the lens from the mount (degrees)
+        public final double lensAngle;
+        //Distance from the target to drive to (inches)
+        public final double desiredDist;
+
+        VisionConfig(Source s) {
+            lensHeight = s.get("vision.lensHeight", Constants.limelightHeight, 0, 60);
+            lensAngle = s.get("vision.lensAngle", Constants.limelightAngle, -90, 90);
+            desiredDist = s.get("vision.desiredDist", 36.0, 0, 240);
+        }
+    }
+
+    //The values in use
+    //Each set is immutable and replaced as a whole, so a reader holding one never sees a half applied change
+    //Only the control group swaps them (applyPending, its first job), so every read within one run sees the same values
+    //Other threads (the limelight worker) read the reference once per frame: volatile makes them see a swap,
+    //final fields make the set it points to safe to read without locking
+    public static final HardwareConfig hardware;
+    public static volatile DriveConfig drive;
+    public static volatile ManipulatorConfig manipulator;
+    public static volatile VisionConfig vision;
+
+    //Sets built on the NetworkTables thread, waiting for the next loop boundary
+    private static final AtomicReference<LiveSet> pending = new AtomicReference<>();
+    //Every live value as text, edited by NetworkTables changes (guarded by the class lock)
+    private static Properties liveValues;
+    private static NetworkTable table;
+
+    private static final class LiveSet {
+        final DriveConfig drive;
+        final ManipulatorConfig manipulator;
+        final VisionConfig vision;
+
+        LiveSet(Source s) {
+            drive = new DriveConfig(s);
+            manipulator = new ManipulatorConfig(s);
+            vision = new VisionConfig(s);
+        }
+    }
+
+    static {
+        Properties file = readFile();
+
+        Source hardwareSource = new Source(file);
+        HardwareConfig loaded = new HardwareConfig(hardwareSource);
+        if (hardwareSource.failed()) {
+            DriverStation.reportError(kFileName + ": " + hardwareSource.errors + "using the default ports", false);
+            loaded = new HardwareConfig(new Source(new Properties()));
+        }
+        hardware = loaded;
+
+        //Values out of range fall back to their defaults one by one, the robot still has to start
+        Source liveSource = new Source(file);
+        LiveSet set = new LiveSet(liveSource);
+        if (liveSource.failed()) {
+            DriverStation.reportError(kFileName + ": " + liveSource.errors + "using the defaults for these", false);
+        }
+        drive = set.drive;
+        manipulator = set.manipulator;
+        vision = set.vision;
+        liveValues = liveSource.used;
+    }
+
+    private Tuning() {}
+
+    //#READFILE
+    private static Properties readFile() {
+        Properties file = new Properties();
+        Path path = Filesystem.getDeployDirectory().toPath().resolve(kFileName);
+        try (InputStream in = Files.newInputStream(path)) {
+            file.load(in);
+        } catch (IOException e) {
+            DriverStation.reportWarning("No " + kFileName + " in the deploy directory, using the defaults: " + e.getMessage(), false);
+        }
+        return file;
+    }
+
+    //#STARTLIVEUPDATES
+    //This method publishes every live value under Tuning/ and starts listening for changes from the dashboard
+    public static synchronized void startLiveUpdates() {
+        NetworkTableInstance nt = NetworkTableInstance.getDefault();
+        table = nt.getTable(kTableName);
+        publish();
+        table.getEntry(kReloadKey).setBoolean(false);
+
+        nt.addListener(new String[] {"/" + kTableName + "/"}, EnumSet.of(NetworkTableEvent.Kind.kValueRemote), Tuning::onChange);
+    }
+
+    private static void publish() {
+        for (String key : liveValues.stringPropertyNames()) {
+            table.getEntry(key).setDouble(Double.parseDouble(liveValues.getProperty(key)));
+        }
+    }
+
+    //#ONCHANGE
+    //Runs on the NetworkTables listener thread, builds and checks a whole new set and leaves it for applyPending()
+    private static synchronized void onChange(NetworkTableEvent event) {
+        String key = event.valueData.getTopic().getName().substring(kTableName.length() + 2);
+        NetworkTableValue value = event.valueData.value;
+
+        Properties edited = (Properties) liveValues.clone();
+        if (key.equals(kReloadKey)) {
+            if (!value.getBoolean()) return;
+            edited = readFile();
+            table.getEntry(kReloadKey).setBoolean(false);
+        } else if (liveValues.containsKey(key) && value.isDouble()) {
+            edited.setProperty(key, Double.toString(value.getDouble()));
+        } else {
+            return;
+        }
+
+        //A change is taken whole or not at all
+        Source source = new Source(edited);
+        LiveSet set = new LiveSet(source);
+        if (source.failed()) {
+            DriverStation.reportWarning("Tuning change rejected: " + source.errors, false);
+        } else {
+            liveValues = source.used;
+            pending.set(set);
+        }
+        //Put back what is really in use, so the dashboard never shows a value the robot is not running
+        publish();
+    }
+
+    //#APPLYPENDING
+    //This method swaps in the newest set from NetworkTables, called by the control group at the start of every run
+    public static void applyPending() {
+        LiveSet set = pending.getAndSet(null);
+        if (set == null) return;
+        drive = set.drive;
+        manipulator = set.manipulator;
+        vision = set.vision;
+    }
+
+    //#SOURCE
+    //Reads typed values out of the text and keeps a list of what was wrong instead of stopping at the first problem
+    //Package private so the range checks can be tested on their own
+    static final class Source {
+        private final Properties values;
+        private final StringBuilder errors = new StringBuilder();
+        //Every value read, as it ended up, so it can be published and edited
+        private final Properties used = new Properties();
+
+        Source(Properties values) {
+            this.values = values;
+        }
+
+        double get(String key, double defaultValue, double min, double max) {
+            String text = values.getProperty(key);
+            double value = defaultValue;
+            if (text != null) {
+                try {
+                    value = Double.parseDouble(text.trim());
+                } catch (NumberFormatException e) {
+                    error(key + "=" + text + " is not a number");
+                    value = defaultValue;
+                }
+                if (!(value >= min && value <= max)) {
+                    error(key + "=" + text + " is outside " + min + " to " + max);
+                    value = defaultValue;
+                }
+            }
+            used.setProperty(key, Double.toString(value));
+            return value;
+        }
+
+        int getInt(String key, int defaultValue, int min, int max) {
+            String text = values.getProperty(key);
+            if (text == null) return defaultValue;
+            try {
+                int value = Integer.parseInt(text.trim());
+                if (value >= min && value <= max) return value;
+                error(key + "=" + text + " is outside " + min + " to " + max);
+            } catch (NumberFormatException e) {
+                error(key + "=" + text + " is not a whole number");
+            }
+            return defaultValue;
+        }
+
+        void error(String message) {
+            errors.append(message).append("; ");
+        }
+
+        boolean failed() {
+            return errors.length() > 0;
+        }
+    }
+}
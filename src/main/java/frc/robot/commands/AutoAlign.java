@@ -0,0 +1,168 @@
+package frc.robot.commands;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.controller.ProfiledPIDController;
+import edu.wpi.first.math.trajectory.TrapezoidProfile;
+import edu.wpi.first.math.util.Units;
+import edu.wpi.first.wpilibj2.command.CommandBase;
+import frc.robot.SensorSnapshot;
+import frc.robot.Tuning;
+import frc.robot.subsystems.DriveTrain;
+import frc.robot.subsystems.LimeLight;
+import frc.robot.subsystems.PoseEstimator;
+import frc.robot.util.DataLogger;
+
+public class AutoAlign extends CommandBase {
+
+    //HEADING CONTROLLER
+    //Profile limits (rad/s, rad/s^2), PD gains (percent output per radian) and how close counts as aimed
+    private static final double kMaxTurnRate = 4.0;
+    private static final double kMaxTurnAccel = 12.0;
+    private static final double kHeadingP = 1.2;
+    private static final double kHeadingD = 0.05;
+    private static final double kHeadingTolerance = Math.toRadians(1.5);
+    //Percent turn output per rad/s of the profile, about 1 / the fastest the robot can spin
+    private static final double kTurnFF = 1.0 / 18;
+
+    //DISTANCE CONTROLLER
+    //Profile limits (m/s, m/s^2), P gain (percent output per meter) and how close counts as in range
+    private static final double kMaxSpeed = 2.0;
+    private static final double kMaxAccel = 3.0;
+    private static final double kDistanceP = 1.5;
+    private static final double kDistanceTolerance = Units.inchesToMeters(2.5);
+    //Percent forward output per m/s of the profile, about 1 / the top speed of the robot
+    private static final double kDriveFF = 1.0 / 5.1;
+
+    //Both controllers have to stay settled this long before the command ends (seconds)
+    private static final double kSettleTime = 0.06;
+    //The command gives up when no target has been seen for this long (seconds)
+    private static final double kLostTimeout = 0.25;
+    //Default time budget for the whole alignment (seconds)
+    public static final double kDefaultBudget = 1.0;
+
+    private final LimeLight limeLight;
+    private final double budget;
+
+    private final ProfiledPIDController headingController =
+        new ProfiledPIDController(kHeadingP, 0, kHeadingD, new TrapezoidProfile.Constraints(kMaxTurnRate, kMaxTurnAccel));
+    private final ProfiledPIDController distanceController =
+        new ProfiledPIDController(kDistanceP, 0, 0, new TrapezoidProfile.Constraints(kMaxSpeed, kMaxAccel));
+
+    private double startTime;
+    private double lastSeenTime;
+    private double settledSince;
+    private long lastFrame;
+    private boolean hasGoal;
+
+    //Log signals for tuning the alignment from match logs
+    private static final int kHeadingErrorLog = DataLogger.addDouble("AutoAlign/HeadingError");
+    private static final int kDistanceErrorLog = DataLogger.addDouble("AutoAlign/DistanceError");
+    private static final int kTimeLog = DataLogger.addDouble("AutoAlign/Time");
+    private static final int kAlignedLog = DataLogger.addBoolean("AutoAlign/Aligned");
+
+    public AutoAlign(LimeLight limeLight) {
+        this(limeLight, kDefaultBudget);
+    }
+
+    //budget is the longest the alignment may take (seconds), it ends where it is once that runs out
+    public AutoAlign(LimeLight limeLight, double budget) {
+        this.limeLight = limeLight;
+        this.budget = budget;
+        headingController.enableContinuousInput(-Math.PI, Math.PI);
+        headingController.setTolerance(kHeadingTolerance);
+        distanceController.setTolerance(kDistanceTolerance);
+        addRequirements(DriveTrain.requirement);
+    }
+
+    //#INITIALIZE
+    @Override
+    public void initialize() {
+        double now = SensorSnapshot.getTimestamp();
+        startTime = now;
+        lastSeenTime = now;
+        settledSince = Double.NaN;
+        lastFrame = limeLight.getFrameCount();
+        hasGoal = false;
+
+        //Until the first frame the goals are where the robot is, so it holds still
+        double heading = PoseEstimator.getHeading();
+        double distance = PoseEstimator.getDistance();
+        headingController.reset(heading);
+        headingController.setGoal(heading);
+        distanceController.reset(distance);
+        distanceController.setGoal(distance);
+    }
+
+    //#EXECUTE
+    //Every new frame moves the goals, between frames both controllers run on the encoders at the full loop rate
+    @Override
+    public void execute() {
+        double now = SensorSnapshot.getTimestamp();
+        long frame = limeLight.getFrameCount();
+        if (frame != lastFrame && limeLight.hasTarget()) {
+            lastFrame = frame;
+            lastSeenTime = now;
+            setGoals();
+        }
+
+        double heading = PoseEstimator.getHeading();
+        double distance = PoseEstimator.getDistance();
+
+        double turn = headingController.calculate(heading) + kTurnFF * headingController.getSetpoint().velocity;
+        double forward = distanceController.calculate(distance) + kDriveFF * distanceController.getSetpoint().velocity;
+        //Driving while still turned away would push the robot off line, so forward fades out with the heading error
+        forward *= Math.max(0, Math.cos(headingController.getPositionError()));
+
+        DriveTrain.HamsterDrive.arcadeDrive(MathUtil.clamp(forward, -1, 1), MathUtil.clamp(turn, -1, 1), false);
+
+        boolean settled = hasGoal && headingController.atGoal() && distanceController.atGoal();
+        if (!settled) {
+            settledSince = Double.NaN;
+        } else if (Double.isNaN(settledSince)) {
+            settledSince = now;
+        }
+
+        DataLogger.setDouble(kHeadingErrorLog, headingController.getPositionError());
+        DataLogger.setDouble(kDistanceErrorLog, distanceController.getPositionError());
+    }
+
+    //#SETGOALS
+    //The frame was captured a little while ago, so the goals are worked out from where the robot was then
+    //The encoders know how far it has turned and driven since, so there is no lag to correct for later
+    private void setGoals() {
+        double captureTime = limeLight.getCaptureTime();
+
+        //tx is positive to the right, headings are counterclockwise
+        double headingGoal = PoseEstimator.getHeadingAt(captureTime) - Math.toRadians(limeLight.getX());
+        headingController.setGoal(MathUtil.angleModulus(headingGoal));
+
+        double range = limeLight.getFilteredDist();
+        if (!Double.isNaN(range)) {
+            double toGo = Units.inchesToMeters(range - Tuning.vision.desiredDist);
+            distanceController.setGoal(PoseEstimator.getDistanceAt(captureTime) + toGo);
+        }
+        hasGoal = true;
+    }
+
+    //#ISFINISHED
+    @Override
+    public boolean isFinished() {
+        double now = SensorSnapshot.getTimestamp();
+        boolean settled = !Double.isNaN(settledSince) && now - settledSince >= kSettleTime;
+        return settled || now - startTime >= budget || now - lastSeenTime >= kLostTimeout;
+    }
+
+    //#END
+    @Override
+    public void end(boolean interrupted) {
+        DriveTrain.HamsterDrive.arcadeDrive(0, 0, false);
+        DataLogger.setDouble(kTimeLog, SensorSnapshot.getTimestamp() - startTime);
+        DataLogger.setBoolean(kAlignedLog, isAligned());
+    }
+
+    //#ISALIGNED
+    //True when both controllers are at their goals from a real target
+    public boolean isAligned() {
+        return hasGoal && headingController.atGoal() && distanceController.atGoal();
+    }
+}
@@ -0,0 +1,110 @@
+package frc.robot.commands;
+
+import edu.wpi.first.wpilibj.smartdashboard.SendableChooser;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.Commands;
+import edu.wpi.first.wpilibj2.command.FunctionalCommand;
+import frc.robot.subsystems.DriveTrain;
+import frc.robot.subsystems.LimeLight;
+import frc.robot.subsystems.Manipulator;
+import frc.robot.subsystems.Pivot;
+import frc.robot.subsystems.Shooter;
+
+public class AutoRoutines {
+
+    //#CREATECHOOSER
+    //This method builds every routine and puts them in a chooser for the dashboard
+    public static SendableChooser<Command> createChooser(LimeLight limeLight) {
+        SendableChooser<Command> chooser = new SendableChooser<>();
+        chooser.setDefaultOption("Two Note", twoNote());
+        chooser.addOption("Shoot And Leave", shootAndLeave());
+        chooser.addOption("Align And Shoot", alignAndShoot(limeLight));
+        chooser.addOption("Shoot Only", aimAndShoot().withName("Shoot Only"));
+        chooser.addOption("Do Nothing", Commands.none().withName("Do Nothing"));
+        return chooser;
+    }
+
+    //#TWONOTE
+    //Shoot the preloaded note, drive to and pick up the next one, shoot it, then leave the starting zone
+    public static Command twoNote() {
+        return Commands.sequence(
+            aimAndShoot(),
+            driveDistance(24),
+            intakeNote(),
+            aim(),
+            driveDistance(24),
+            aimAndShoot(),
+            driveDistance(36)
+        ).withName("Two Note");
+    }
+
+    //#SHOOTANDLEAVE
+    //Shoot the preloaded note and drive out of the starting zone
+    public static Command shootAndLeave() {
+        return Commands.sequence(
+            aimAndShoot(),
+            driveDistance(36)
+        ).withName("Shoot And Leave");
+    }
+
+
+
+    //#ALIGNANDSHOOT
+    //Line up on the speaker tag from wherever the robot starts, then shoot the preloaded note
+    public static Command alignAndShoot(LimeLight limeLight) {
+        return Commands.sequence(
+            new AutoAlign(limeLight),
+            aimAndShoot()
+        ).withName("Align And Shoot");
+    }
+
+
+
+    //STEPS
+    //Every step ends on its own condition and has a timeout so a missed sensor can't hang the routine
+    //Each step requires what it moves (DriveTrain, Pivot, Manipulator), so a routine never fights another command for it
+
+    //#DRIVEDISTANCE
+    //Drives _ inches with a trapezoid profile on the SPARK MAX controllers, measured from where the step starts
+    public static Command driveDistance(double distance) {
+        return new FunctionalCommand(
+            () -> DriveTrain.startProfiledDrive(distance),
+            DriveTrain::profiledDrive,
+            interrupted -> DriveTrain.HamsterDrive.stopMotor(),
+            DriveTrain::profiledDriveDone,
+            DriveTrain.requirement
+        ).withTimeout(4.0);
+    }
+
+    //#AIM
+    //Brings the manipulator back to the amp position, the Pivot holds it there once the step ends
+    public static Command aim() {
+        return Commands.run(Manipulator::ampPosition, Pivot.requirement)
+            .until(Pivot::atSetpoint)
+            .withTimeout(2.0);
+    }
+
+    //#SHOOT
+    //Spins the amp wheels up, feeds the note once they are at speed and ends as soon as the Shooter sees it leave
+    //(ends right away if there is no note to shoot)
+    public static Command shoot() {
+        return Commands.run(Manipulator::shootNote, Manipulator.requirement)
+            .until(Shooter::isIdle)
+            .withTimeout(3.0)
+            .finallyDo(interrupted -> Manipulator.stopManipulator());
+    }
+
+    //#AIMANDSHOOT
+    public static Command aimAndShoot() {
+        return Commands.sequence(aim(), shoot());
+    }
+
+    //#INTAKENOTE
+    //Moves the manipulator to the intake position while running the intake until the beam sensor sees a note
+    public static Command intakeNote() {
+        return Commands.parallel(
+            Commands.run(() -> Pivot.goTo(Pivot.kIntake), Pivot.requirement).until(Pivot::atSetpoint).withTimeout(1.5),
+            Commands.run(Manipulator::intake, Manipulator.requirement).until(Manipulator::hasNote).withTimeout(4.0)
+        ).finallyDo(interrupted -> Manipulator.stopManipulator());
+    }
+}
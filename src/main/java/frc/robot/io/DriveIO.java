@@ -0,0 +1,85 @@
+package frc.robot.io;
+
+public interface DriveIO {
+
+    //#INPUTS
+    //Everything the drive code reads, sampled once per control loop
+    class Inputs implements LoggableInputs {
+        //Leader encoder positions (motor rotations) and velocities (RPM)
+        public double leftPosition;
+        public double rightPosition;
+        public double leftVelocity;
+        public double rightVelocity;
+        //Output current of each motor (amps)
+        public double leftLeaderCurrent;
+        public double leftFollowerCurrent;
+        public double rightLeaderCurrent;
+        public double rightFollowerCurrent;
+        //Battery voltage, read here with the drive currents for the PowerGovernor (volts)
+        public double batteryVoltage = 12;
+
+        @Override
+        public int size() {
+            return 9;
+        }
+
+        @Override
+        public void write(double[] out) {
+            out[0] = leftPosition;
+            out[1] = rightPosition;
+            out[2] = leftVelocity;
+            out[3] = rightVelocity;
+            out[4] = leftLeaderCurrent;
+            out[5] = leftFollowerCurrent;
+            out[6] = rightLeaderCurrent;
+            out[7] = rightFollowerCurrent;
+            out[8] = batteryVoltage;
+        }
+
+        @Override
+        public void read(double[] in) {
+            leftPosition = in[0];
+            rightPosition = in[1];
+            leftVelocity = in[2];
+            rightVelocity = in[3];
+            leftLeaderCurrent = in[4];
+            leftFollowerCurrent = in[5];
+            rightLeaderCurrent = in[6];
+            rightFollowerCurrent = in[7];
+            batteryVoltage = in[8];
+        }
+    }
+
+    //#OUTPUTS
+    //Everything the drive code sends, filled in during the loop and applied once at the end of it
+    class Outputs {
+        //Percent output of each side, used unless profiled is set
+        public double leftOutput;
+        public double rightOutput;
+        //Smart Motion targets (motor rotations) and percent feedforward of each side, used while profiled is set
+        public boolean profiled;
+        public double leftTarget;
+        public double rightTarget;
+        public double leftFeedforward;
+        public double rightFeedforward;
+        //Largest closed loop output of each side either way while profiled: the PowerGovernor cut, lower while the side's wheels slip
+        public double leftMaxOutput = 1;
+        public double rightMaxOutput = 1;
+    }
+
+    //Log replay uses this interface as it is: every method does nothing and InputLog fills in the recorded inputs
+
+    //#CONFIGURE
+    //Registers the motor controller settings with the MotorConfigManager, called once from robotInit
+    default void configure() {}
+
+    //#UPDATEINPUTS
+    default void updateInputs(Inputs inputs) {}
+
+    //#APPLYOUTPUTS
+    default void applyOutputs(Outputs outputs) {}
+
+    //#RESETENCODERS
+    //Sets both encoder positions to zero
+    default void resetEncoders() {}
+}
@@ -0,0 +1,113 @@
+package frc.robot.io;
+
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.RelativeEncoder;
+import com.revrobotics.SparkMaxPIDController;
+import com.revrobotics.CANSparkMax.ControlType;
+import com.revrobotics.CANSparkMaxLowLevel.MotorType;
+import com.revrobotics.SparkMaxPIDController.ArbFFUnits;
+
+import edu.wpi.first.wpilibj.RobotController;
+import frc.robot.Tuning;
+import frc.robot.subsystems.DriveTrain;
+import frc.robot.util.CanBudget;
+import frc.robot.util.MotorConfig;
+import frc.robot.util.MotorConfigManager;
+
+public class DriveIOSparkMax implements DriveIO {
+
+    //Smart Motion velocity loop gains (slot 0)
+    private static final double kProfileP = 0.00005;
+    private static final double kProfileFF = 1.0 / 5676; //1 / NEO free speed in RPM
+    //Trapezoid limits in motor RPM and RPM per second
+    private static final double kProfileMaxVelocity = 3000;
+    private static final double kProfileMaxAccel = 2500;
+    //Smart current limit of each drive NEO (amps), the PowerGovernor shares out what is left of the battery above that
+    private static final int kDriveCurrentLimit = 50;
+    //Smallest change in output range worth sending to the controllers again
+    private static final double kRangeResend = 0.05;
+
+    //create motor controller objects
+    private final CANSparkMax leftP = new CANSparkMax(Tuning.hardware.leftPID, MotorType.kBrushless);
+    private final CANSparkMax rightP = new CANSparkMax(Tuning.hardware.rightPID, MotorType.kBrushless);
+    private final CANSparkMax leftF = new CANSparkMax(Tuning.hardware.leftFID, MotorType.kBrushless);
+    private final CANSparkMax rightF = new CANSparkMax(Tuning.hardware.rightFID, MotorType.kBrushless);
+
+    //create encoder and onboard PID controller objects
+    private final RelativeEncoder leftEncoder = leftP.getEncoder();
+    private final RelativeEncoder rightEncoder = rightP.getEncoder();
+    private final SparkMaxPIDController leftPID = leftP.getPIDController();
+    private final SparkMaxPIDController rightPID = rightP.getPIDController();
+    //Output range last sent to each side
+    private double sentLeftMaxOutput = 1;
+    private double sentRightMaxOutput = 1;
+
+    //#CONFIGURE
+    @Override
+    public void configure() {
+        // Describe the motor controllers, MotorConfigManager only restores defaults and burns flash when this changes
+        // Leaders: output fast for the followers, velocity and position for the encoders and the profiled drive
+        // Velocity and position come every 10 ms like the control group that reads them, so odometry and MotionHealth
+        // never run twice on the same sample (about 200 frames/s more than 20 ms, under 3% of the bus)
+        MotorConfigManager.register(new MotorConfig(leftP, "leftP")
+            .currentLimit(kDriveCurrentLimit)
+            .statusPeriods(10, 10, 10)
+            .smartMotion(kProfileP, kProfileFF, kProfileMaxVelocity, kProfileMaxAccel, DriveTrain.kProfilePositionTolerance));
+        // Invert the right side motor controller
+        MotorConfigManager.register(new MotorConfig(rightP, "rightP")
+            .inverted(true)
+            .currentLimit(kDriveCurrentLimit)
+            .statusPeriods(10, 10, 10)
+            .smartMotion(kProfileP, kProfileFF, kProfileMaxVelocity, kProfileMaxAccel, DriveTrain.kProfilePositionTolerance));
+        // Followers: only their current is read, by the PowerGovernor
+        MotorConfigManager.register(new MotorConfig(leftF, "leftF").follow(leftP, false)
+            .currentLimit(kDriveCurrentLimit)
+            .statusPeriods(CanBudget.kUnused, 50, CanBudget.kUnused));
+        MotorConfigManager.register(new MotorConfig(rightF, "rightF").follow(rightP, false)
+            .currentLimit(kDriveCurrentLimit)
+            .statusPeriods(CanBudget.kUnused, 50, CanBudget.kUnused));
+    }
+
+    //#UPDATEINPUTS
+    @Override
+    public void updateInputs(Inputs inputs) {
+        inputs.leftPosition = leftEncoder.getPosition();
+        inputs.rightPosition = rightEncoder.getPosition();
+        inputs.leftVelocity = leftEncoder.getVelocity();
+        inputs.rightVelocity = rightEncoder.getVelocity();
+        inputs.leftLeaderCurrent = leftP.getOutputCurrent();
+        inputs.leftFollowerCurrent = leftF.getOutputCurrent();
+        inputs.rightLeaderCurrent = rightP.getOutputCurrent();
+        inputs.rightFollowerCurrent = rightF.getOutputCurrent();
+        inputs.batteryVoltage = RobotController.getBatteryVoltage();
+    }
+
+    //#APPLYOUTPUTS
+    //The position and velocity loops of a profiled drive run on the motor controllers at 1 kHz
+    @Override
+    public void applyOutputs(Outputs outputs) {
+        if (outputs.profiled) {
+            //The slip cut is applied as the closed loop output range
+            if (Math.abs(outputs.leftMaxOutput - sentLeftMaxOutput) > kRangeResend) {
+                leftPID.setOutputRange(-outputs.leftMaxOutput, outputs.leftMaxOutput);
+                sentLeftMaxOutput = outputs.leftMaxOutput;
+            }
+            if (Math.abs(outputs.rightMaxOutput - sentRightMaxOutput) > kRangeResend) {
+                rightPID.setOutputRange(-outputs.rightMaxOutput, outputs.rightMaxOutput);
+                sentRightMaxOutput = outputs.rightMaxOutput;
+            }
+            leftPID.setReference(outputs.leftTarget, ControlType.kSmartMotion, 0, outputs.leftFeedforward, ArbFFUnits.kPercentOut);
+            rightPID.setReference(outputs.rightTarget, ControlType.kSmartMotion, 0, outputs.rightFeedforward, ArbFFUnits.kPercentOut);
+        } else {
+            leftP.set(outputs.leftOutput);
+            rightP.set(outputs.rightOutput);
+        }
+    }
+
+    //#RESETENCODERS
+    @Override
+    public void resetEncoders() {
+        leftEncoder.setPosition(0);
+        rightEncoder.setPosition(0);
+    }
+}
@@ -0,0 +1,132 @@
+package frc.robot.io;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.wpi.first.util.datalog.DataLog;
+import edu.wpi.first.util.datalog.DataLogReader;
+import edu.wpi.first.util.datalog.DataLogRecord;
+import edu.wpi.first.util.datalog.DoubleArrayLogEntry;
+import frc.robot.util.DataLogger;
+
+public class InputLog {
+
+    //Maximum number of input classes that can be registered
+    private static final int kMaxInputs = 8;
+    //Log entry names are this plus the registered name
+    private static final String kPrefix = "Inputs/";
+
+    //Registered inputs and the array each one is written to, filled in on the main thread before the handle is used
+    private static final String[] names = new String[kMaxInputs];
+    private static final LoggableInputs[] inputs = new LoggableInputs[kMaxInputs];
+    private static final double[][] buffers = new double[kMaxInputs][];
+    private static final DoubleArrayLogEntry[] entries = new DoubleArrayLogEntry[kMaxInputs];
+    private static int inputCount = 0;
+
+    //REPLAY
+    //Every recorded sample by entry name, and for each handle its samples and the next one to hand out
+    private static Map<String, double[][]> recorded = null;
+    private static final double[][][] samples = new double[kMaxInputs][][];
+    private static final int[] nextSample = new int[kMaxInputs];
+    private static volatile boolean finished = false;
+
+    //#REGISTER
+    //This method adds an input class under a name and returns the handle used to process it
+    public static synchronized int register(String name, LoggableInputs values) {
+        if (inputCount >= kMaxInputs) {
+            throw new IllegalStateException("Too many logged inputs, increase kMaxInputs");
+        }
+        names[inputCount] = name;
+        inputs[inputCount] = values;
+        buffers[inputCount] = new double[values.size()];
+        return inputCount++;
+    }
+
+    //#PROCESS
+    //This method is called right after an IO fills in its inputs, once per sample
+    //On the robot and in simulation it records the sample, in log replay it overwrites the inputs with the next recorded one
+    public static void process(int handle) {
+        if (recorded != null) {
+            replay(handle);
+            return;
+        }
+
+        DataLog log = DataLogger.getLog();
+        if (log == null) return;
+        if (entries[handle] == null) entries[handle] = new DoubleArrayLogEntry(log, kPrefix + names[handle]);
+        inputs[handle].write(buffers[handle]);
+        entries[handle].append(buffers[handle]);
+    }
+
+    private static void replay(int handle) {
+        if (samples[handle] == null) {
+            samples[handle] = recorded.getOrDefault(kPrefix + names[handle], new double[0][]);
+        }
+        if (nextSample[handle] >= samples[handle].length) {
+            //The recording ran out: the inputs keep their last values and the replay is over
+            finished = true;
+            return;
+        }
+        double[] sample = samples[handle][nextSample[handle]++];
+        if (sample.length != buffers[handle].length) {
+            throw new IllegalStateException(kPrefix + names[handle] + " was recorded with " + sample.length
+                + " values, the code now has " + buffers[handle].length);
+        }
+        inputs[handle].read(sample);
+    }
+
+    //#STARTREPLAY
+    //This method reads every recorded input sample of a match log, call it before the robot code starts
+    //From then on process() hands the samples back in order and nothing is recorded
+    public static synchronized void startReplay(String path) throws IOException {
+        DataLogReader reader = new DataLogReader(path);
+        if (!reader.isValid()) {
+            throw new IOException(path + " is not a WPILib data log");
+        }
+
+        Map<Integer, String> entryNames = new HashMap<>();
+        Map<String, List<double[]>> values = new HashMap<>();
+        for (DataLogRecord record : reader) {
+            if (record.isStart()) {
+                DataLogRecord.StartRecordData start = record.getStartData();
+                if (start.name.startsWith(kPrefix)) {
+                    entryNames.put(start.entry, start.name);
+                    values.computeIfAbsent(start.name, key -> new ArrayList<>());
+                }
+            } else if (!record.isControl()) {
+                String name = entryNames.get(record.getEntry());
+                if (name != null) values.get(name).add(record.getDoubleArray());
+            }
+        }
+
+        Map<String, double[][]> loaded = new HashMap<>();
+        for (Map.Entry<String, List<double[]>> entry : values.entrySet()) {
+            loaded.put(entry.getKey(), entry.getValue().toArray(new double[0][]));
+        }
+        if (loaded.isEmpty()) {
+            throw new IOException(path + " has no " + kPrefix + " entries to replay");
+        }
+        recorded = loaded;
+    }
+
+    //#GETTERS
+    //True while the inputs come from a recorded match instead of the IO implementations
+    public static boolean isReplaying() {
+        return recorded != null;
+    }
+
+    //True once any input has run out of recorded samples
+    public static boolean isFinished() {
+        return finished;
+    }
+
+    //Number of samples recorded under a name, 0 when there are none
+    public static int getSampleCount(String name) {
+        if (recorded == null) return 0;
+        double[][] found = recorded.get(kPrefix + name);
+        return found == null ? 0 : found.length;
+    }
+}
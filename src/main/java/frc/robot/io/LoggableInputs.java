@@ -0,0 +1,13 @@
+package frc.robot.io;
+
+public interface LoggableInputs {
+
+    //Number of values write() fills in, fixed for the class
+    int size();
+
+    //Copies every value into out, in a fixed order (booleans as 1 or 0)
+    void write(double[] out);
+
+    //Reads every value back from an array filled in by write()
+    void read(double[] in);
+}
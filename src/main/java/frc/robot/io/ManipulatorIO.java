@@ -0,0 +1,107 @@
+package frc.robot.io;
+
+public interface ManipulatorIO {
+
+    //#INPUTS
+    //Everything the manipulator code reads, sampled once per control loop
+    class Inputs implements LoggableInputs {
+        //Pivot leader encoder (motor rotations and RPM, raw, before the Pivot's zero), applied output and both currents (amps)
+        public double basePosition;
+        public double baseVelocity;
+        public double baseAppliedOutput;
+        public double baseLeaderCurrent;
+        public double baseFollowerCurrent;
+        //Amp wheels and intake: encoder (motor rotations and RPM) and current (amps)
+        public double ampPosition;
+        public double ampVelocity;
+        public double ampCurrent;
+        public double intakePosition;
+        public double intakeVelocity;
+        public double intakeCurrent;
+        //Digital inputs: a note in front of the beam sensor, the pivot on the magnetic sensor
+        public boolean beamBroken;
+        public boolean magnetTriggered;
+
+        @Override
+        public int size() {
+            return 13;
+        }
+
+        @Override
+        public void write(double[] out) {
+            out[0] = basePosition;
+            out[1] = baseVelocity;
+            out[2] = baseAppliedOutput;
+            out[3] = baseLeaderCurrent;
+            out[4] = baseFollowerCurrent;
+            out[5] = ampPosition;
+            out[6] = ampVelocity;
+            out[7] = ampCurrent;
+            out[8] = intakePosition;
+            out[9] = intakeVelocity;
+            out[10] = intakeCurrent;
+            out[11] = beamBroken ? 1 : 0;
+            out[12] = magnetTriggered ? 1 : 0;
+        }
+
+        @Override
+        public void read(double[] in) {
+            basePosition = in[0];
+            baseVelocity = in[1];
+            baseAppliedOutput = in[2];
+            baseLeaderCurrent = in[3];
+            baseFollowerCurrent = in[4];
+            ampPosition = in[5];
+            ampVelocity = in[6];
+            ampCurrent = in[7];
+            intakePosition = in[8];
+            intakeVelocity = in[9];
+            intakeCurrent = in[10];
+            beamBroken = in[11] != 0;
+            magnetTriggered = in[12] != 0;
+        }
+    }
+
+    //#OUTPUTS
+    //Everything the manipulator code sends, filled in during the loop and applied once at the end of it
+    class Outputs {
+        //Pivot: percent output, used unless baseProfiled is set
+        public double baseOutput;
+        //Pivot: Smart Motion target (raw motor rotations) and percent feedforward, used while baseProfiled is set
+        public boolean baseProfiled;
+        public double baseTarget;
+        public double baseFeedforward;
+        //Pivot: largest closed loop output either way, the PowerGovernor cut
+        public double baseMaxOutput = 1;
+        //Amp wheels and intake percent outputs
+        public double ampOutput;
+        public double intakeOutput;
+    }
+
+    //Log replay uses this interface as it is: every method does nothing and InputLog fills in the recorded inputs
+
+    //#BEAMLISTENER
+    //Called from the interrupt thread for beam sensor edges, with the hardware timestamp of each edge (FPGA seconds)
+    interface BeamListener {
+        void onEdge(boolean rising, boolean falling, double risingTime, double fallingTime);
+    }
+
+    //#CONFIGURE
+    //Registers the motor controller settings with the MotorConfigManager, called once from robotInit
+    default void configure() {}
+
+    //#UPDATEINPUTS
+    default void updateInputs(Inputs inputs) {}
+
+    //#APPLYOUTPUTS
+    default void applyOutputs(Outputs outputs) {}
+
+    //#WATCHBEAMSENSOR
+    //Starts calling the listener on every beam sensor edge as it happens
+    //Without interrupts (simulation and replay) nothing is called and the edges are found from the sampled inputs
+    default void watchBeamSensor(BeamListener listener) {}
+
+    //#STOPINTAKE
+    //Stops the intake right away, safe to call from the interrupt thread
+    default void stopIntake() {}
+}
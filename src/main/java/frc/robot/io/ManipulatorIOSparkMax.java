@@ -0,0 +1,140 @@
+package frc.robot.io;
+
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.RelativeEncoder;
+import com.revrobotics.SparkMaxPIDController;
+import com.revrobotics.CANSparkMax.ControlType;
+import com.revrobotics.CANSparkMaxLowLevel.MotorType;
+import com.revrobotics.SparkMaxPIDController.ArbFFUnits;
+
+import edu.wpi.first.wpilibj.AsynchronousInterrupt;
+import edu.wpi.first.wpilibj.DigitalInput;
+import frc.robot.Tuning;
+import frc.robot.subsystems.Pivot;
+import frc.robot.util.CanBudget;
+import frc.robot.util.MotorConfig;
+import frc.robot.util.MotorConfigManager;
+
+public class ManipulatorIOSparkMax implements ManipulatorIO {
+
+    //PIVOT
+    //Smart Motion velocity loop gains (slot 0)
+    private static final double kBaseP = 0.0001;
+    private static final double kBaseFF = 1.0 / 5330; //1 / CIM free speed in RPM
+    //Trapezoid limits in motor RPM and RPM per second
+    private static final double kBaseMaxVelocity = 2000;
+    private static final double kBaseMaxAccel = 4000;
+    //Smallest change in gravity feedforward or output range worth sending to the controller again
+    private static final double kFFResend = 0.005;
+    private static final double kRangeResend = 0.05;
+
+    //Smart current limits (amps), the PowerGovernor scales the outputs further when the battery is short
+    private static final int kBaseCurrentLimit = 40;
+    private static final int kAmpCurrentLimit = 40;
+    private static final int kIntakeCurrentLimit = 30;
+
+    //Create the motor controller objects
+    private final CANSparkMax leftBaseMotor = new CANSparkMax(Tuning.hardware.leftBaseID, MotorType.kBrushed);
+    private final CANSparkMax rightBaseMotor = new CANSparkMax(Tuning.hardware.rightBaseID, MotorType.kBrushed);
+    private final CANSparkMax ampMotor = new CANSparkMax(Tuning.hardware.ampID, MotorType.kBrushless);
+    private final CANSparkMax intakeMotor = new CANSparkMax(Tuning.hardware.intakeID, MotorType.kBrushless);
+
+    //Create the encoder and onboard PID controller objects
+    private final RelativeEncoder baseEncoder = rightBaseMotor.getEncoder();
+    private final RelativeEncoder ampEncoder = ampMotor.getEncoder();
+    private final RelativeEncoder intakeEncoder = intakeMotor.getEncoder();
+    private final SparkMaxPIDController basePID = rightBaseMotor.getPIDController();
+
+    //Create the digital input objects
+    private final DigitalInput beamSensor = new DigitalInput(Tuning.hardware.beamSensorID);
+    private final DigitalInput magneticSensor = new DigitalInput(Tuning.hardware.magneticSensorID);
+    private AsynchronousInterrupt beamInterrupt;
+
+    //Last closed loop values sent, so a held setpoint costs no CAN traffic
+    private double sentTarget = Double.NaN;
+    private double sentFeedforward = Double.NaN;
+    private double sentMaxOutput = 1;
+
+    //#CONFIGURE
+    @Override
+    public void configure() {
+        //Describe the motor controllers, MotorConfigManager only restores defaults and burns flash when this changes
+        //Every motor reports its current at 50 ms for the PowerGovernor
+        //Pivot leader: output fast for its follower, current for the PowerGovernor, position for the setpoints
+        MotorConfigManager.register(new MotorConfig(rightBaseMotor, "rightBaseMotor")
+            .currentLimit(kBaseCurrentLimit)
+            .statusPeriods(10, 50, 20)
+            .smartMotion(kBaseP, kBaseFF, kBaseMaxVelocity, kBaseMaxAccel, Pivot.kTolerance));
+        //Set the leftBaseMotor as a follower
+        //(the old setInverted(true) after follow() had no effect on a follower, so it follows uninverted as before)
+        MotorConfigManager.register(new MotorConfig(leftBaseMotor, "leftBaseMotor").follow(rightBaseMotor, false)
+            .currentLimit(kBaseCurrentLimit).statusPeriods(CanBudget.kUnused, 50, CanBudget.kUnused));
+        //Amp wheels: velocity (Status 1) at 10 ms and a short measurement window, so the spin-up and the dip are seen within a loop
+        MotorConfigManager.register(new MotorConfig(ampMotor, "ampMotor")
+            .currentLimit(kAmpCurrentLimit)
+            .statusPeriods(CanBudget.kUnused, 10, CanBudget.kUnused)
+            .velocityFilter(16, 2));
+        //Intake
+        MotorConfigManager.register(new MotorConfig(intakeMotor, "intakeMotor")
+            .currentLimit(kIntakeCurrentLimit).statusPeriods(CanBudget.kUnused, 50, CanBudget.kUnused));
+    }
+
+    //#UPDATEINPUTS
+    @Override
+    public void updateInputs(Inputs inputs) {
+        inputs.basePosition = baseEncoder.getPosition();
+        inputs.baseVelocity = baseEncoder.getVelocity();
+        inputs.baseAppliedOutput = rightBaseMotor.getAppliedOutput();
+        inputs.baseLeaderCurrent = rightBaseMotor.getOutputCurrent();
+        inputs.baseFollowerCurrent = leftBaseMotor.getOutputCurrent();
+        inputs.ampPosition = ampEncoder.getPosition();
+        inputs.ampVelocity = ampEncoder.getVelocity();
+        inputs.ampCurrent = ampMotor.getOutputCurrent();
+        inputs.intakePosition = intakeEncoder.getPosition();
+        inputs.intakeVelocity = intakeEncoder.getVelocity();
+        inputs.intakeCurrent = intakeMotor.getOutputCurrent();
+        inputs.beamBroken = beamSensor.get();
+        inputs.magnetTriggered = magneticSensor.get();
+    }
+
+    //#APPLYOUTPUTS
+    //The pivot's profile and position loop run on the SPARK MAX, the reference is only sent when it changes
+    @Override
+    public void applyOutputs(Outputs outputs) {
+        if (outputs.baseProfiled) {
+            //The PowerGovernor cut is applied as the closed loop output range
+            if (Math.abs(outputs.baseMaxOutput - sentMaxOutput) > kRangeResend) {
+                basePID.setOutputRange(-outputs.baseMaxOutput, outputs.baseMaxOutput);
+                sentMaxOutput = outputs.baseMaxOutput;
+            }
+            if (outputs.baseTarget != sentTarget || Math.abs(outputs.baseFeedforward - sentFeedforward) > kFFResend) {
+                basePID.setReference(outputs.baseTarget, ControlType.kSmartMotion, 0, outputs.baseFeedforward, ArbFFUnits.kPercentOut);
+                sentTarget = outputs.baseTarget;
+                sentFeedforward = outputs.baseFeedforward;
+            }
+        } else {
+            rightBaseMotor.set(outputs.baseOutput);
+            sentTarget = Double.NaN;
+        }
+        ampMotor.set(outputs.ampOutput);
+        intakeMotor.set(outputs.intakeOutput);
+    }
+
+    //#WATCHBEAMSENSOR
+    //Interrupts on both edges, so a note is seen the moment it arrives instead of on the next loop
+    @Override
+    public void watchBeamSensor(BeamListener listener) {
+        beamInterrupt = new AsynchronousInterrupt(beamSensor, (rising, falling) -> listener.onEdge(rising, falling,
+            rising ? beamInterrupt.getRisingTimestamp() : Double.NaN,
+            falling ? beamInterrupt.getFallingTimestamp() : Double.NaN));
+        beamInterrupt.setInterruptEdges(true, true);
+        beamInterrupt.enable();
+    }
+
+    //#STOPINTAKE
+    //Skips the PowerGovernor scale, stopping needs none
+    @Override
+    public void stopIntake() {
+        intakeMotor.set(0);
+    }
+}
@@ -0,0 +1,30 @@
+package frc.robot.io;
+
+import edu.wpi.first.wpilibj.RobotBase;
+import frc.robot.sim.DriveIOSim;
+import frc.robot.sim.ManipulatorIOSim;
+import frc.robot.sim.VisionIOSim;
+
+public class RobotIO {
+
+    //Log replay gets the bare interfaces, which touch no hardware, so InputLog is the only source of inputs
+    //InputLog.startReplay has to be called before the first of these
+
+    //#DRIVE
+    public static DriveIO drive() {
+        if (InputLog.isReplaying()) return new DriveIO() {};
+        return RobotBase.isReal() ? new DriveIOSparkMax() : new DriveIOSim();
+    }
+
+    //#MANIPULATOR
+    public static ManipulatorIO manipulator() {
+        if (InputLog.isReplaying()) return new ManipulatorIO() {};
+        return RobotBase.isReal() ? new ManipulatorIOSparkMax() : new ManipulatorIOSim();
+    }
+
+    //#VISION
+    public static VisionIO vision() {
+        if (InputLog.isReplaying()) return new VisionIO() {};
+        return RobotBase.isReal() ? new VisionIOLimelight() : new VisionIOSim();
+    }
+}
@@ -0,0 +1,123 @@
+package frc.robot.io;
+
+import java.util.function.Consumer;
+
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.util.VisionFrame;
+import frc.robot.util.VisionTarget;
+
+public interface VisionIO {
+
+    //#INPUTS
+    //What the vision worker handed the robot loop since the last sample: the frames it processed, oldest first,
+    //and the newest target it worked out of them. Log replay hands back this processed output, not the camera frames.
+    class Inputs implements LoggableInputs {
+        //Most frames handed over in one sample, the camera makes about one per vision loop
+        public static final int kMaxFrames = 4;
+        //Values per frame in the flat array
+        private static final int kFrameSize = 12 + 3 * VisionFrame.kMaxTags;
+        //Values of the target in the flat array
+        private static final int kTargetSize = 12;
+
+        public int frameCount;
+        public final VisionFrame[] frames = new VisionFrame[kMaxFrames];
+        public final VisionTarget target = new VisionTarget();
+
+        public Inputs() {
+            for (int i = 0; i < kMaxFrames; i++) frames[i] = new VisionFrame();
+        }
+
+        @Override
+        public int size() {
+            return 1 + kMaxFrames * kFrameSize + kTargetSize;
+        }
+
+        //Capture times are written as an age (seconds before this sample), so a replay lines them up with its own clock
+        @Override
+        public void write(double[] out) {
+            double now = Timer.getFPGATimestamp();
+            out[0] = frameCount;
+            for (int i = 0; i < kMaxFrames; i++) {
+                VisionFrame frame = frames[i];
+                int at = 1 + i * kFrameSize;
+                out[at] = now - frame.captureTime;
+                out[at + 1] = frame.latencyMs;
+                out[at + 2] = frame.tx;
+                out[at + 3] = frame.ty;
+                out[at + 4] = frame.ta;
+                out[at + 5] = frame.tv;
+                out[at + 6] = frame.tid;
+                out[at + 7] = frame.tagCount;
+                out[at + 8] = frame.hasPose ? 1 : 0;
+                out[at + 9] = frame.poseX;
+                out[at + 10] = frame.poseY;
+                out[at + 11] = frame.poseYaw;
+                for (int tag = 0; tag < VisionFrame.kMaxTags; tag++) {
+                    out[at + 12 + tag * 3] = frame.tagIDs[tag];
+                    out[at + 13 + tag * 3] = frame.tagTx[tag];
+                    out[at + 14 + tag * 3] = frame.tagTy[tag];
+                }
+            }
+            int at = 1 + kMaxFrames * kFrameSize;
+            out[at] = target.frameCount;
+            out[at + 1] = now - target.captureTime;
+            out[at + 2] = target.latencyMs;
+            out[at + 3] = target.tx;
+            out[at + 4] = target.ty;
+            out[at + 5] = target.ta;
+            out[at + 6] = target.tv;
+            out[at + 7] = target.tid;
+            out[at + 8] = target.distance;
+            out[at + 9] = target.filteredDistance;
+            out[at + 10] = target.filteredTx;
+            out[at + 11] = target.turnPower;
+        }
+
+        @Override
+        public void read(double[] in) {
+            double now = Timer.getFPGATimestamp();
+            frameCount = (int) in[0];
+            for (int i = 0; i < kMaxFrames; i++) {
+                VisionFrame frame = frames[i];
+                int at = 1 + i * kFrameSize;
+                frame.captureTime = now - in[at];
+                frame.latencyMs = in[at + 1];
+                frame.tx = in[at + 2];
+                frame.ty = in[at + 3];
+                frame.ta = in[at + 4];
+                frame.tv = in[at + 5];
+                frame.tid = in[at + 6];
+                frame.tagCount = (int) in[at + 7];
+                frame.hasPose = in[at + 8] != 0;
+                frame.poseX = in[at + 9];
+                frame.poseY = in[at + 10];
+                frame.poseYaw = in[at + 11];
+                for (int tag = 0; tag < VisionFrame.kMaxTags; tag++) {
+                    frame.tagIDs[tag] = (int) in[at + 12 + tag * 3];
+                    frame.tagTx[tag] = in[at + 13 + tag * 3];
+                    frame.tagTy[tag] = in[at + 14 + tag * 3];
+                }
+            }
+            int at = 1 + kMaxFrames * kFrameSize;
+            target.frameCount = (long) in[at];
+            target.captureTime = now - in[at + 1];
+            target.latencyMs = in[at + 2];
+            target.tx = in[at + 3];
+            target.ty = in[at + 4];
+            target.ta = in[at + 5];
+            target.tv = in[at + 6];
+            target.tid = in[at + 7];
+            target.distance = in[at + 8];
+            target.filteredDistance = in[at + 9];
+            target.filteredTx = in[at + 10];
+            target.turnPower = in[at + 11];
+        }
+    }
+
+    //Log replay uses this interface as it is: no frame ever arrives and InputLog fills in the recorded Inputs
+
+    //#START
+    //Starts handing every camera frame to onFrame as soon as it arrives, on the thread that reads the camera
+    //The frame is only valid during the call, onFrame copies what it keeps
+    default void start(Consumer<VisionFrame> onFrame) {}
+}
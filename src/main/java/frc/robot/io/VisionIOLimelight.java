@@ -0,0 +1,195 @@
+package frc.robot.io;
+
+import java.util.EnumSet;
+import java.util.function.Consumer;
+
+import edu.wpi.first.networktables.DoubleArraySubscriber;
+import edu.wpi.first.networktables.DoubleSubscriber;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableEvent;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.NetworkTableListenerPoller;
+import edu.wpi.first.networktables.PubSubOption;
+import edu.wpi.first.networktables.TimestampedDouble;
+import edu.wpi.first.networktables.TimestampedDoubleArray;
+import edu.wpi.first.util.WPIUtilJNI;
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.util.VisionFrame;
+
+public class VisionIOLimelight implements VisionIO {
+
+    //Values kept per topic for matching, a few frames' worth
+    private static final int kHistory = 8;
+    //Values published this close to a frame's tl (server time, microseconds) belong to that frame
+    //The limelight writes a whole frame within well under a millisecond, frames are at least 10 ms apart
+    private static final long kMatchWindow = 2000;
+    private static final double[] kNoValues = new double[0];
+
+    //setup networktable upon creation
+    //Every topic queues its values with their server times, so each frame can take the values published with it
+    private final NetworkTable nTable = NetworkTableInstance.getDefault().getTable("limelight");
+    private final DoubleSubscriber tx = nTable.getDoubleTopic("tx").subscribe(0.0, queued());
+    private final DoubleSubscriber ty = nTable.getDoubleTopic("ty").subscribe(0.0, queued());
+    private final DoubleSubscriber ta = nTable.getDoubleTopic("ta").subscribe(0.0, queued());
+    private final DoubleSubscriber tv = nTable.getDoubleTopic("tv").subscribe(0.0, queued());
+    private final DoubleSubscriber tid = nTable.getDoubleTopic("tid").subscribe(0.0, queued());
+    private final DoubleSubscriber cl = nTable.getDoubleTopic("cl").subscribe(0.0, queued());
+    //Robot pose on the field from the AprilTags: x, y, z, roll, pitch, yaw
+    private final DoubleArraySubscriber botpose = nTable.getDoubleArrayTopic("botpose_wpiblue").subscribe(new double[0], queued());
+    //Every AprilTag in the frame, 7 values each: id, tx, ty, ta, distance to camera, distance to robot, ambiguity
+    private final DoubleArraySubscriber rawfiducials = nTable.getDoubleArrayTopic("rawfiducials").subscribe(new double[0], queued());
+    private static final int kFiducialStride = 7;
+    //The limelight writes tl once per frame, so every tl update marks a new frame.
+    //Duplicates are kept so two frames with the same latency still both show up.
+    private final DoubleSubscriber tl = nTable.getDoubleTopic("tl").subscribe(0.0, PubSubOption.keepDuplicates(true));
+
+    //Only touched by the worker thread: the recent values of every topic
+    private final Samples txSamples = new Samples();
+    private final Samples tySamples = new Samples();
+    private final Samples taSamples = new Samples();
+    private final Samples tvSamples = new Samples();
+    private final Samples tidSamples = new Samples();
+    private final Samples clSamples = new Samples();
+    private final Samples botposeSamples = new Samples();
+    private final Samples fiducialSamples = new Samples();
+
+    //The vision worker thread waits on its own poller for tl updates and stamps every frame with its capture time as it arrives
+    private final NetworkTableListenerPoller framePoller = new NetworkTableListenerPoller(NetworkTableInstance.getDefault());
+    private final Thread worker = new Thread(this::runWorker, "LimeLight");
+    //Only touched by the worker thread
+    private final VisionFrame incoming = new VisionFrame();
+    private Consumer<VisionFrame> onFrame;
+
+    private static PubSubOption[] queued() {
+        return new PubSubOption[] {PubSubOption.keepDuplicates(true), PubSubOption.pollStorage(kHistory)};
+    }
+
+    //#START
+    @Override
+    public void start(Consumer<VisionFrame> onFrame) {
+        this.onFrame = onFrame;
+        framePoller.addListener(tl, EnumSet.of(NetworkTableEvent.Kind.kValueAll));
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    //#RUNWORKER
+    //The worker thread: sleeps until the limelight finishes a frame, then reads it
+    private void runWorker() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                WPIUtilJNI.waitForObject(framePoller.getHandle());
+            } catch (InterruptedException e) {
+                return;
+            }
+            for (NetworkTableEvent event : framePoller.readQueue()) {
+                if (event.valueData != null) onFrame(event);
+            }
+        }
+    }
+
+    //#ONFRAME
+    //Reads the whole frame, every value the one published with its tl, stamps it with its capture time and hands it over
+    private void onFrame(NetworkTableEvent event) {
+        double receiveTime = Timer.getFPGATimestamp();
+        long frameTime = event.valueData.value.getServerTime();
+        VisionFrame frame = incoming;
+        readQueues();
+
+        frame.latencyMs = event.valueData.value.getDouble() + clSamples.value(frameTime, 0.0);
+        frame.captureTime = receiveTime - frame.latencyMs / 1000.0;
+        frame.tx = txSamples.value(frameTime, 0.0);
+        frame.ty = tySamples.value(frameTime, 0.0);
+        frame.ta = taSamples.value(frameTime, 0.0);
+        frame.tv = tvSamples.value(frameTime, 0.0);
+        frame.tid = tidSamples.value(frameTime, 0.0);
+        readTags(frame, fiducialSamples.array(frameTime));
+
+        double[] pose = botposeSamples.array(frameTime);
+        frame.hasPose = frame.tv == 1.0 && pose.length >= 6 && (pose[0] != 0.0 || pose[1] != 0.0);
+        if (frame.hasPose) {
+            frame.poseX = pose[0];
+            frame.poseY = pose[1];
+            frame.poseYaw = pose[5];
+        }
+        onFrame.accept(frame);
+    }
+
+    //#READQUEUES
+    //Moves every value each topic received since the last frame into its samples
+    private void readQueues() {
+        for (TimestampedDouble value : tx.readQueue()) txSamples.add(value.serverTime, value.value);
+        for (TimestampedDouble value : ty.readQueue()) tySamples.add(value.serverTime, value.value);
+        for (TimestampedDouble value : ta.readQueue()) taSamples.add(value.serverTime, value.value);
+        for (TimestampedDouble value : tv.readQueue()) tvSamples.add(value.serverTime, value.value);
+        for (TimestampedDouble value : tid.readQueue()) tidSamples.add(value.serverTime, value.value);
+        for (TimestampedDouble value : cl.readQueue()) clSamples.add(value.serverTime, value.value);
+        for (TimestampedDoubleArray value : botpose.readQueue()) botposeSamples.add(value.serverTime, value.value);
+        for (TimestampedDoubleArray value : rawfiducials.readQueue()) fiducialSamples.add(value.serverTime, value.value);
+    }
+
+    //#READTAGS
+    //Copies every AprilTag of the frame into it
+    //Older limelight firmware has no rawfiducials, then the primary tag is the only one
+    private void readTags(VisionFrame frame, double[] fiducials) {
+        int count = Math.min(fiducials.length / kFiducialStride, VisionFrame.kMaxTags);
+        if (count == 0 && frame.tv == 1.0 && frame.tid >= 0) {
+            frame.tagIDs[0] = (int) frame.tid;
+            frame.tagTx[0] = frame.tx;
+            frame.tagTy[0] = frame.ty;
+            frame.tagCount = 1;
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            frame.tagIDs[i] = (int) fiducials[i * kFiducialStride];
+            frame.tagTx[i] = fiducials[i * kFiducialStride + 1];
+            frame.tagTy[i] = fiducials[i * kFiducialStride + 2];
+        }
+        frame.tagCount = count;
+    }
+
+    //#SAMPLES
+    //The last few values of one topic with their server times (microseconds), the oldest is overwritten first
+    private static final class Samples {
+        private final long[] times = new long[kHistory];
+        private final double[] values = new double[kHistory];
+        private final double[][] arrays = new double[kHistory][];
+        private int count = 0;
+
+        void add(long time, double value) {
+            values[count % kHistory] = value;
+            times[count % kHistory] = time;
+            count++;
+        }
+
+        void add(long time, double[] array) {
+            arrays[count % kHistory] = array;
+            times[count % kHistory] = time;
+            count++;
+        }
+
+        //The value published with a frame: the one closest to its time within kMatchWindow
+        //A topic the limelight did not write again for this frame has not changed, then it is the newest one before the frame
+        double value(long time, double defaultValue) {
+            int index = find(time);
+            return index < 0 ? defaultValue : values[index];
+        }
+
+        double[] array(long time) {
+            int index = find(time);
+            return index < 0 ? kNoValues : arrays[index];
+        }
+
+        private int find(long time) {
+            int closest = -1;
+            int before = -1;
+            for (int i = Math.max(count - kHistory, 0); i < count; i++) {
+                int index = i % kHistory;
+                long offset = Math.abs(times[index] - time);
+                if (offset <= kMatchWindow && (closest < 0 || offset < Math.abs(times[closest] - time))) closest = index;
+                if (times[index] <= time) before = index;
+            }
+            return closest >= 0 ? closest : before;
+        }
+    }
+}
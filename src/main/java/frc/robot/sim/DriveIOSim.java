@@ -0,0 +1,55 @@
+package frc.robot.sim;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.wpilibj.RobotController;
+import frc.robot.io.DriveIO;
+
+public class DriveIOSim implements DriveIO {
+
+    //Smart Motion lives in the SPARK MAX firmware, which simulation does not have, so a plain P loop stands in for it
+    //Percent output per motor rotation of error, and its cap
+    private static final double kProfileP = 0.05;
+    private static final double kProfileMax = 0.6;
+
+    //Model positions at the last encoder reset, so the encoders read zero there like the real ones
+    private double leftOffset = 0;
+    private double rightOffset = 0;
+
+    //#UPDATEINPUTS
+    @Override
+    public void updateInputs(Inputs inputs) {
+        inputs.leftPosition = RobotSim.getLeftRotations() - leftOffset;
+        inputs.rightPosition = RobotSim.getRightRotations() - rightOffset;
+        inputs.leftVelocity = RobotSim.getLeftVelocity();
+        inputs.rightVelocity = RobotSim.getRightVelocity();
+        //Each model gearbox is two motors sharing the load
+        inputs.leftLeaderCurrent = RobotSim.getLeftCurrent() / 2;
+        inputs.leftFollowerCurrent = RobotSim.getLeftCurrent() / 2;
+        inputs.rightLeaderCurrent = RobotSim.getRightCurrent() / 2;
+        inputs.rightFollowerCurrent = RobotSim.getRightCurrent() / 2;
+        inputs.batteryVoltage = RobotController.getBatteryVoltage();
+    }
+
+    //#APPLYOUTPUTS
+    @Override
+    public void applyOutputs(Outputs outputs) {
+        if (outputs.profiled) {
+            double left = RobotSim.getLeftRotations() - leftOffset;
+            double right = RobotSim.getRightRotations() - rightOffset;
+            double leftOutput = MathUtil.clamp((outputs.leftTarget - left) * kProfileP, -kProfileMax, kProfileMax) + outputs.leftFeedforward;
+            double rightOutput = MathUtil.clamp((outputs.rightTarget - right) * kProfileP, -kProfileMax, kProfileMax) + outputs.rightFeedforward;
+            RobotSim.setDriveOutputs(
+                MathUtil.clamp(leftOutput, -outputs.leftMaxOutput, outputs.leftMaxOutput),
+                MathUtil.clamp(rightOutput, -outputs.rightMaxOutput, outputs.rightMaxOutput));
+        } else {
+            RobotSim.setDriveOutputs(outputs.leftOutput, outputs.rightOutput);
+        }
+    }
+
+    //#RESETENCODERS
+    @Override
+    public void resetEncoders() {
+        leftOffset = RobotSim.getLeftRotations();
+        rightOffset = RobotSim.getRightRotations();
+    }
+}
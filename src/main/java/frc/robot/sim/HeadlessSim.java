@@ -0,0 +1,60 @@
+package frc.robot.sim;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import frc.robot.Robot;
+
+public class HeadlessSim {
+
+    //Length of one simulated robot loop (seconds)
+    private static final double kStep = 0.02;
+
+    //#MAIN
+    //Arguments: mode (auto or teleop) and how many seconds of match time to simulate
+    //Usage: ./gradlew simulateHeadless -Pmode=auto -Pseconds=15
+    public static void main(String... args) throws Exception {
+        String mode = args.length > 0 ? args[0] : "auto";
+        double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 15;
+
+        if (!HAL.initialize(500, 0)) {
+            throw new IllegalStateException("Failed to initialize the HAL");
+        }
+
+        //Time only moves when we step it, so the robot runs as fast as the CPU allows
+        SimHooks.pauseTiming();
+        DriverStationSim.setDsAttached(true);
+        DriverStationSim.setAutonomous(mode.equals("auto"));
+        DriverStationSim.setEnabled(true);
+        DriverStationSim.notifyNewData();
+
+        Robot robot = new Robot();
+        Thread robotThread = new Thread(robot::startCompetition, "Robot");
+        robotThread.setDaemon(true);
+        robotThread.start();
+        //Wait for robotInit and simulationInit to finish before stepping
+        SimHooks.waitForProgramStart();
+
+        long start = System.nanoTime();
+        int steps = (int) Math.round(seconds / kStep);
+        for (int i = 0; i < steps; i++) {
+            SimHooks.stepTiming(kStep);
+        }
+        double wallSeconds = (System.nanoTime() - start) / 1e9;
+
+        robot.endCompetition();
+        robotThread.join(1000);
+
+        System.out.println("Simulated " + seconds + " s of " + mode + " in " + Math.round(wallSeconds * 1000) + " ms ("
+            + Math.round(seconds / wallSeconds) + "x real time)");
+        System.out.println("Final pose: x " + round(RobotSim.getX()) + " m, y " + round(RobotSim.getY()) + " m, heading "
+            + round(Math.toDegrees(RobotSim.getHeading())) + " deg");
+
+        HAL.shutdown();
+        System.exit(0);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+}
@@ -0,0 +1,60 @@
+package frc.robot.sim;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import frc.robot.Robot;
+import frc.robot.io.InputLog;
+
+public class LogReplay {
+
+    //One control loop per step, each step hands every IO its next recorded sample (seconds)
+    private static final double kStep = 0.01;
+
+    //#MAIN
+    //Argument: path of the .wpilog file to replay
+    //The replay writes its own log like a match would, with every signal worked out again from the recorded inputs
+    //Usage: ./gradlew replayLog -Plog=logs/FRC_20240316_181512.wpilog
+    public static void main(String... args) throws Exception {
+        if (args.length < 1) {
+            throw new IllegalArgumentException("Usage: LogReplay <path to .wpilog>");
+        }
+
+        if (!HAL.initialize(500, 0)) {
+            throw new IllegalStateException("Failed to initialize the HAL");
+        }
+        //Must come before the robot code is loaded, the IO classes are picked when the subsystems are
+        InputLog.startReplay(args[0]);
+        System.out.println("Replaying " + InputLog.getSampleCount("Drive") + " loops from " + args[0]);
+
+        //Time only moves when we step it, one recorded loop per step
+        SimHooks.pauseTiming();
+        DriverStationSim.setDsAttached(true);
+        DriverStationSim.notifyNewData();
+
+        Robot robot = new Robot();
+        Thread robotThread = new Thread(robot::startCompetition, "Robot");
+        robotThread.setDaemon(true);
+        robotThread.start();
+        //Wait for robotInit and simulationInit to finish before stepping
+        SimHooks.waitForProgramStart();
+
+        long start = System.nanoTime();
+        int steps = 0;
+        while (!InputLog.isFinished()) {
+            SimHooks.stepTiming(kStep);
+            steps++;
+        }
+        double wallSeconds = (System.nanoTime() - start) / 1e9;
+
+        robot.endCompetition();
+        robotThread.join(1000);
+
+        double seconds = steps * kStep;
+        System.out.println("Replayed " + Math.round(seconds * 10) / 10.0 + " s in " + Math.round(wallSeconds * 1000) + " ms ("
+            + Math.round(seconds / wallSeconds) + "x real time)");
+
+        HAL.shutdown();
+        System.exit(0);
+    }
+}
@@ -0,0 +1,51 @@
+package frc.robot.sim;
+
+import edu.wpi.first.math.MathUtil;
+import frc.robot.io.ManipulatorIO;
+
+public class ManipulatorIOSim implements ManipulatorIO {
+
+    //Smart Motion lives in the SPARK MAX firmware, which simulation does not have, so a plain P loop stands in for it
+    //Percent output per motor rotation of error, and its cap
+    private static final double kBaseP = 0.2;
+    private static final double kBaseMax = 0.5;
+
+    //#UPDATEINPUTS
+    @Override
+    public void updateInputs(Inputs inputs) {
+        inputs.basePosition = RobotSim.getBaseRotations();
+        inputs.baseVelocity = RobotSim.getBaseVelocity();
+        inputs.baseAppliedOutput = RobotSim.getBaseOutput();
+        //The model's two base motors share the load
+        inputs.baseLeaderCurrent = RobotSim.getBaseCurrent() / 2;
+        inputs.baseFollowerCurrent = RobotSim.getBaseCurrent() / 2;
+        inputs.ampPosition = RobotSim.getAmpRotations();
+        inputs.ampVelocity = RobotSim.getAmpVelocity();
+        inputs.ampCurrent = RobotSim.getAmpCurrent();
+        inputs.intakePosition = RobotSim.getIntakeRotations();
+        inputs.intakeVelocity = RobotSim.getIntakeVelocity();
+        inputs.intakeCurrent = 0;
+        inputs.beamBroken = RobotSim.hasNote();
+        inputs.magnetTriggered = RobotSim.isMagnetTriggered();
+    }
+
+    //#APPLYOUTPUTS
+    @Override
+    public void applyOutputs(Outputs outputs) {
+        if (outputs.baseProfiled) {
+            double error = outputs.baseTarget - RobotSim.getBaseRotations();
+            double output = MathUtil.clamp(error * kBaseP, -kBaseMax, kBaseMax) + outputs.baseFeedforward;
+            RobotSim.setBaseOutput(MathUtil.clamp(output, -outputs.baseMaxOutput, outputs.baseMaxOutput));
+        } else {
+            RobotSim.setBaseOutput(outputs.baseOutput);
+        }
+        RobotSim.setAmpOutput(outputs.ampOutput);
+        RobotSim.setIntakeOutput(outputs.intakeOutput);
+    }
+
+    //#STOPINTAKE
+    @Override
+    public void stopIntake() {
+        RobotSim.setIntakeOutput(0);
+    }
+}
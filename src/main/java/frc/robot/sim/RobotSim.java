@@ -0,0 +1,321 @@
+package frc.robot.sim;
+
+import java.util.function.Consumer;
+
+import edu.wpi.first.math.VecBuilder;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.math.util.Units;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.simulation.DifferentialDrivetrainSim;
+import edu.wpi.first.wpilibj.simulation.FlywheelSim;
+import edu.wpi.first.wpilibj.simulation.SingleJointedArmSim;
+import frc.robot.Constants;
+import frc.robot.subsystems.FieldLayout;
+import frc.robot.subsystems.PoseEstimator;
+import frc.robot.util.VisionFrame;
+
+public class RobotSim {
+
+    //The models are the robot as built, so they keep the Constants measurements even when Tuning changes what the code uses
+
+    //DRIVE TRAIN MODEL
+    private static final double kRobotMassKg = 55;
+    private static final double kRobotMoiKgM2 = 6.0;
+    private static final double kWheelRadiusMeters = Units.inchesToMeters(Constants.wheelCircumference) / (2 * Math.PI);
+    private static final double kTrackWidthMeters = Units.inchesToMeters(Constants.trackWidth);
+
+    //MANIPULATOR BASE MODEL
+    //Motor rotations per arm rotation, arm length and mass
+    private static final double kBaseGearing = Constants.pivotGearRatio;
+    private static final double kBaseLengthMeters = 0.5;
+    private static final double kBaseMassKg = 6;
+    //Angles from horizontal; the magnetic sensor sits at the amp position, the bottom of travel
+    private static final double kAmpAngleRads = Math.toRadians(Constants.pivotHomeAngle);
+    private static final double kMaxAngleRads = Math.toRadians(100);
+    private static final double kStartAngleRads = Math.toRadians(20);
+    private static final double kMagnetWindowRads = Math.toRadians(2);
+
+    //AMP WHEEL MODEL
+    //Moment of inertia of the amp wheels (kg m^2), and how much of their speed a note takes as it goes through
+    private static final double kAmpMoiKgM2 = 0.002;
+    private static final double kNoteSpeedLoss = 0.25;
+
+    //NOTE MODEL
+    //Seconds the intake has to run in or out for a note to reach or leave the beam sensor
+    private static final double kIntakeTime = 0.5;
+    private static final double kFeedOutTime = 0.2;
+
+    //LIMELIGHT MODEL
+    //Tag positions come from FieldLayout, loaded in robotInit
+    //Field of view half-angles and the farthest distance a tag is found (degrees and meters)
+    private static final double kHorizontalFov = 29.8;
+    private static final double kVerticalFov = 24.85;
+    private static final double kMaxTagDistance = 6.0;
+    //Pipeline and capture latency reported with every frame (milliseconds)
+    private static final double kPipelineLatencyMs = 25;
+    private static final double kCaptureLatencyMs = 10;
+
+    //Starting pose, about 2 meters in front of the blue speaker (in line with tag 7) facing it
+    private static final double kStartX = 2.0;
+    private static final double kStartY = 5.547868;
+    private static final double kStartHeading = Math.PI;
+
+    //INTAKE MODEL
+    //Roller speed at full output (RPM), the intake is light enough to be at speed right away
+    private static final double kIntakeFreeRpm = 5676;
+
+    //The models are built with the class, so the sim IO classes can read them before simulationInit
+    private static final DifferentialDrivetrainSim driveSim = new DifferentialDrivetrainSim(DCMotor.getNEO(2), Constants.driveGearRatio,
+        kRobotMoiKgM2, kRobotMassKg, kWheelRadiusMeters, kTrackWidthMeters, null);
+    private static final SingleJointedArmSim baseSim = new SingleJointedArmSim(DCMotor.getCIM(2), kBaseGearing,
+        SingleJointedArmSim.estimateMOI(kBaseLengthMeters, kBaseMassKg), kBaseLengthMeters, kAmpAngleRads, kMaxAngleRads, true);
+    private static final FlywheelSim ampSim = new FlywheelSim(DCMotor.getNEO(1), 1, kAmpMoiKgM2);
+
+    //Percent outputs of the simulated motor controllers, set by the sim IO classes
+    private static double leftOutput = 0;
+    private static double rightOutput = 0;
+    private static double baseOutput = 0;
+    private static double ampOutput = 0;
+    private static double intakeOutput = 0;
+
+    //Encoder positions the models do not track themselves (motor rotations)
+    private static double ampRotations = 0;
+    private static double intakeRotations = 0;
+
+    private static boolean hasNote = true;
+    private static double intakeRunTime = 0;
+    private static double feedOutTime = 0;
+
+    //The newest simulated limelight frame, how many have been made and who gets them
+    private static final VisionFrame frame = new VisionFrame();
+    private static long frameCount = 0;
+    private static Consumer<VisionFrame> frameListener = null;
+
+    static {
+        driveSim.setPose(new Pose2d(kStartX, kStartY, new Rotation2d(kStartHeading)));
+        baseSim.setState(VecBuilder.fill(kStartAngleRads, 0));
+    }
+
+    //#INIT
+    //This method starts the pose estimator where the simulated robot is
+    public static void init() {
+        PoseEstimator.resetPose(kStartX, kStartY, kStartHeading);
+    }
+
+    //#SETOUTPUTS
+    //Percent outputs for the models, called by the sim IO classes when the robot code applies its outputs
+    public static void setDriveOutputs(double left, double right) {
+        leftOutput = left;
+        rightOutput = right;
+    }
+
+    public static void setBaseOutput(double output) {
+        baseOutput = output;
+    }
+
+    public static void setAmpOutput(double output) {
+        ampOutput = output;
+    }
+
+    public static void setIntakeOutput(double output) {
+        intakeOutput = output;
+    }
+
+    //#UPDATE
+    //This method moves every model forward by dt seconds
+    public static void update(double dt) {
+        double battery = RobotController.getBatteryVoltage();
+
+        driveSim.setInputs(leftOutput * battery, rightOutput * battery);
+        driveSim.update(dt);
+
+        baseSim.setInput(baseOutput * battery);
+        baseSim.update(dt);
+
+        ampSim.setInput(ampOutput * battery);
+        ampSim.update(dt);
+        ampRotations += ampSim.getAngularVelocityRPM() / 60 * dt;
+        intakeRotations += getIntakeVelocity() / 60 * dt;
+
+        updateNote(dt);
+        captureFrame();
+    }
+
+    private static void updateNote(double dt) {
+        if (!hasNote && intakeOutput > 0.1) {
+            intakeRunTime += dt;
+            if (intakeRunTime >= kIntakeTime) hasNote = true;
+        } else {
+            intakeRunTime = 0;
+        }
+
+        if (hasNote && intakeOutput < -0.1) {
+            feedOutTime += dt;
+            if (feedOutTime >= kFeedOutTime) {
+                hasNote = false;
+                //The note slows the amp wheels as it goes through them
+                ampSim.setState(VecBuilder.fill(ampSim.getAngularVelocityRadPerSec() * (1 - kNoteSpeedLoss)));
+            }
+        } else {
+            feedOutTime = 0;
+        }
+    }
+
+    //#CAPTUREFRAME
+    //This method makes the frame the limelight would see of the field tags from the simulated pose
+    //The primary target (tx, ty, tid) is the visible tag closest to the crosshair
+    private static void captureFrame() {
+        double robotX = driveSim.getPose().getX();
+        double robotY = driveSim.getPose().getY();
+        double heading = driveSim.getHeading().getRadians();
+        double lensHeight = Units.inchesToMeters(Constants.limelightHeight);
+
+        int count = 0;
+        int primary = -1;
+        double primaryX = 0, primaryY = 0, primaryArea = 0;
+        for (int id = 0; id <= FieldLayout.getMaxID() && count < VisionFrame.kMaxTags; id++) {
+            if (!FieldLayout.hasTag(id)) continue;
+
+            double distance = FieldLayout.getRange(id, robotX, robotY);
+            //Limelight tx is positive when the target is to the right
+            double bearing = -Math.toDegrees(FieldLayout.getBearing(id, robotX, robotY, heading));
+            double elevation = Math.toDegrees(Math.atan2(FieldLayout.getTagZ(id) - lensHeight, distance)) - Constants.limelightAngle;
+            //The robot has to be in front of the tag to see it
+            double facing = Math.cos(Math.atan2(robotY - FieldLayout.getTagY(id), robotX - FieldLayout.getTagX(id)) - FieldLayout.getTagYaw(id));
+            if (distance > kMaxTagDistance || Math.abs(bearing) > kHorizontalFov || Math.abs(elevation) > kVerticalFov || facing <= 0) continue;
+
+            frame.tagIDs[count] = id;
+            frame.tagTx[count] = bearing;
+            frame.tagTy[count] = elevation;
+            count++;
+
+            if (primary < 0 || Math.abs(bearing) < Math.abs(primaryX)) {
+                primary = id;
+                primaryX = bearing;
+                primaryY = elevation;
+                primaryArea = Math.min(100, 1.5 / (distance * distance));
+            }
+        }
+        boolean visible = count > 0;
+
+        frame.latencyMs = kPipelineLatencyMs + kCaptureLatencyMs;
+        frame.captureTime = Timer.getFPGATimestamp() - frame.latencyMs / 1000.0;
+        frame.tv = visible ? 1 : 0;
+        frame.tx = primaryX;
+        frame.ty = primaryY;
+        frame.ta = primaryArea;
+        frame.tid = primary;
+        frame.tagCount = count;
+        frame.hasPose = visible;
+        frame.poseX = robotX;
+        frame.poseY = robotY;
+        frame.poseYaw = Math.toDegrees(heading);
+        frameCount++;
+        if (frameListener != null) frameListener.accept(frame);
+    }
+
+    private static double metersToMotorRotations(double meters) {
+        return Units.metersToInches(meters) / Constants.wheelCircumference * Constants.driveGearRatio;
+    }
+
+    //#SENSORS
+    //What the simulated motor controllers and sensors read, used by the sim IO classes
+    //Encoder positions are motor rotations since the simulation started, velocities motor RPM, currents amps
+    public static double getLeftRotations() {
+        return metersToMotorRotations(driveSim.getLeftPositionMeters());
+    }
+
+    public static double getRightRotations() {
+        return metersToMotorRotations(driveSim.getRightPositionMeters());
+    }
+
+    public static double getLeftVelocity() {
+        return metersToMotorRotations(driveSim.getLeftVelocityMetersPerSecond()) * 60;
+    }
+
+    public static double getRightVelocity() {
+        return metersToMotorRotations(driveSim.getRightVelocityMetersPerSecond()) * 60;
+    }
+
+    //Current of each side's gearbox (two motors)
+    public static double getLeftCurrent() {
+        return driveSim.getLeftCurrentDrawAmps();
+    }
+
+    public static double getRightCurrent() {
+        return driveSim.getRightCurrentDrawAmps();
+    }
+
+    public static double getBaseRotations() {
+        return (baseSim.getAngleRads() - kStartAngleRads) / (2 * Math.PI) * kBaseGearing;
+    }
+
+    public static double getBaseVelocity() {
+        return baseSim.getVelocityRadPerSec() / (2 * Math.PI) * 60 * kBaseGearing;
+    }
+
+    public static double getBaseOutput() {
+        return baseOutput;
+    }
+
+    //Current of both base motors together
+    public static double getBaseCurrent() {
+        return baseSim.getCurrentDrawAmps();
+    }
+
+    public static double getAmpRotations() {
+        return ampRotations;
+    }
+
+    public static double getAmpVelocity() {
+        return ampSim.getAngularVelocityRPM();
+    }
+
+    public static double getAmpCurrent() {
+        return ampSim.getCurrentDrawAmps();
+    }
+
+    public static double getIntakeRotations() {
+        return intakeRotations;
+    }
+
+    public static double getIntakeVelocity() {
+        return intakeOutput * kIntakeFreeRpm;
+    }
+
+    //The magnetic sensor sits at the amp position, the bottom of travel
+    public static boolean isMagnetTriggered() {
+        return baseSim.getAngleRads() - kAmpAngleRads <= kMagnetWindowRads;
+    }
+
+    public static boolean hasNote() {
+        return hasNote;
+    }
+
+    //#GETFRAME
+    //Number of limelight frames made so far, and who gets every new one as it is made
+    public static long getFrameCount() {
+        return frameCount;
+    }
+
+    public static void setFrameListener(Consumer<VisionFrame> listener) {
+        frameListener = listener;
+    }
+
+    //#GETTERS
+    //True pose of the simulated robot, used to check the pose estimator
+    public static double getX() {
+        return driveSim.getPose().getX();
+    }
+
+    public static double getY() {
+        return driveSim.getPose().getY();
+    }
+
+    public static double getHeading() {
+        return driveSim.getHeading().getRadians();
+    }
+}
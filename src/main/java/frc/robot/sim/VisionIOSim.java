@@ -0,0 +1,16 @@
+package frc.robot.sim;
+
+import java.util.function.Consumer;
+
+import frc.robot.io.VisionIO;
+import frc.robot.util.VisionFrame;
+
+public class VisionIOSim implements VisionIO {
+
+    //#START
+    //RobotSim hands over every frame it makes, one per simulation step
+    @Override
+    public void start(Consumer<VisionFrame> onFrame) {
+        RobotSim.setFrameListener(onFrame);
+    }
+}
@@ -4,131 +4,279 @@
 
 package frc.robot.subsystems;
 
-import com.revrobotics.CANSparkMax;
-import com.revrobotics.RelativeEncoder;
-import com.revrobotics.CANSparkMaxLowLevel.MotorType;
 import edu.wpi.first.wpilibj.drive.DifferentialDrive;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj.motorcontrol.MotorController;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
-import frc.robot.Constants;
-import frc.robot.IO;
+import frc.robot.Tuning;
+import frc.robot.DriverInput;
+import frc.robot.io.DriveIO;
+import frc.robot.io.InputLog;
+import frc.robot.io.RobotIO;
+import frc.robot.util.DataLogger;
+import frc.robot.util.InputShaper;
+import frc.robot.util.Telemetry;
 
 
 public class DriveTrain extends SubsystemBase {
   /** Creates a new ExampleSubsystem. */
 
-    //create motor controller objects
-    private static CANSparkMax leftP = new CANSparkMax(Constants.leftPID, MotorType.kBrushless);
-    private static CANSparkMax rightP = new CANSparkMax(Constants.rightPID, MotorType.kBrushless);
-    private static CANSparkMax leftF = new CANSparkMax(Constants.leftFID, MotorType.kBrushless);
-    private static CANSparkMax rightF = new CANSparkMax(Constants.rightFID, MotorType.kBrushless);
-  
-    //create encoder objects
-    static RelativeEncoder leftEncoder = leftP.getEncoder();
-    static RelativeEncoder rightEncoder = rightP.getEncoder();
-  
+    //The drive hardware: SPARK MAX controllers on the robot, the RobotSim model in simulation, nothing in log replay
+    private static final DriveIO io = RobotIO.drive();
+    //Everything read from the hardware this loop, and everything to send at the end of it (MotionHealth reads both)
+    static final DriveIO.Inputs inputs = new DriveIO.Inputs();
+    static final DriveIO.Outputs outputs = new DriveIO.Outputs();
+    private static final int kInputsHandle = InputLog.register("Drive", inputs);
+
+    //One side of the drive train as the differential drive sees it, its output goes to the IO at the end of the loop
+    private static class Side implements MotorController {
+      private final boolean left;
+      private boolean inverted = false;
+
+      Side(boolean left) {
+        this.left = left;
+      }
+
+      @Override
+      public void set(double speed) {
+        outputs.profiled = false;
+        if (left) {
+          outputs.leftOutput = inverted ? -speed : speed;
+        } else {
+          outputs.rightOutput = inverted ? -speed : speed;
+        }
+      }
+
+      @Override
+      public double get() {
+        double output = left ? outputs.leftOutput : outputs.rightOutput;
+        return inverted ? -output : output;
+      }
+
+      @Override
+      public void setInverted(boolean isInverted) {
+        inverted = isInverted;
+      }
+
+      @Override
+      public boolean getInverted() {
+        return inverted;
+      }
+
+      @Override
+      public void disable() {
+        set(0);
+      }
+
+      @Override
+      public void stopMotor() {
+        set(0);
+      }
+    }
+
     // Create the differential drive object
-    public static final DifferentialDrive HamsterDrive = new DifferentialDrive(leftP, rightP);
+    public static final DifferentialDrive HamsterDrive = new DifferentialDrive(new Side(true), new Side(false));
+
+    //PROFILED DRIVE CONSTANTS
+    //The Smart Motion gains and limits are set up by the IO
+    //How close the profile has to finish (motor rotations and RPM)
+    public static final double kProfilePositionTolerance = 0.25;
+    private static final double kProfileVelocityTolerance = 60;
+    //Percent output added per motor rotation of difference between the sides, keeps the robot straight
+    private static final double kHeadingCorrection = 0.02;
+    //Share of its output a side keeps while MotionHealth says its wheels slip, so they grip again
+    private static final double kSlipScale = 0.6;
 
   public DriveTrain() {}
 
- //#STOPDRIVE
- //Method to stop the drive train
- public void stopDrive() {
-  HamsterDrive.stopMotor();
+  //What commands that drive require, so two of them never drive at once
+  public static final DriveTrain requirement = new DriveTrain();
+
+//#UPDATEINPUTS
+//This method reads everything the drive code uses from the hardware, called by SensorSnapshot at the start of every loop
+public static void updateInputs() {
+  io.updateInputs(inputs);
+  InputLog.process(kInputsHandle);
+}
+
+//#APPLYOUTPUTS
+//This method sends the outputs picked this loop to the hardware, once at the end of every loop
+//A slipping side is sent less than was picked, the picked output is kept so the cut does not build up over loops
+public static void applyOutputs() {
+  double left = outputs.leftOutput;
+  double right = outputs.rightOutput;
+  //A profiled drive ignores the percent outputs (HamsterDrive already has the PowerGovernor cut in them),
+  //so its PowerGovernor and slip cuts are the closed loop output range instead
+  double driveScale = PowerGovernor.getScale(PowerGovernor.kDrive);
+  outputs.leftMaxOutput = driveScale;
+  outputs.rightMaxOutput = driveScale;
+  if (MotionHealth.hasEvent(MotionHealth.kLeftDrive, MotionHealth.kSlip)) {
+    outputs.leftOutput *= kSlipScale;
+    outputs.leftMaxOutput = Math.min(driveScale, kSlipScale);
+  }
+  if (MotionHealth.hasEvent(MotionHealth.kRightDrive, MotionHealth.kSlip)) {
+    outputs.rightOutput *= kSlipScale;
+    outputs.rightMaxOutput = Math.min(driveScale, kSlipScale);
+  }
+  io.applyOutputs(outputs);
+  outputs.leftOutput = left;
+  outputs.rightOutput = right;
 }
 
 
 
-//#AUTODRIVE
-//This method drives the auto for _ amount of time in a + or - direction
-public static void autoDrive(double speed, double distance) {
-  if (rightDistance < distance) {
-    HamsterDrive.arcadeDrive(speed, 0, false);
-  } else if (rightDistance >= distance) {
-    HamsterDrive.arcadeDrive(0, 0, false);
-  }
+//#GETOUTPUTS
+//These methods return the percent output last picked for each side
+public static double getLeftOutput() {
+  return outputs.leftOutput;
+}
+
+public static double getRightOutput() {
+  return outputs.rightOutput;
 }
 
+
+
+//#GETDRIVECURRENT
+//This method returns the output current of all four drive motors added up (amps)
+public static double getDriveCurrent() {
+  return inputs.leftLeaderCurrent + inputs.rightLeaderCurrent + inputs.leftFollowerCurrent + inputs.rightFollowerCurrent;
+}
+
+//#GETBATTERYVOLTAGE
+//This method returns the battery voltage read with the drive currents (volts)
+public static double getBatteryVoltage() {
+  return inputs.batteryVoltage;
+}
+
+
+
 //#RESETDRIVE
 //This method resets the drive train elements
 public static void resetDrive() {
 
-  // Reset the factory defaults for the motor controllers
-  leftP.restoreFactoryDefaults();
-  rightP.restoreFactoryDefaults();
-  leftF.restoreFactoryDefaults();
-  rightF.restoreFactoryDefaults(); 
-
-  // Set up the motor controller followers
-  leftF.follow(leftP);
-  rightF.follow(rightP);
-
-  // Invert the right side motor controller
-  rightP.setInverted(true);
+  // Describe the motor controllers, MotorConfigManager only restores defaults and burns flash when this changes
+  io.configure();
 
   //Disable the safety feature of the drivetrain, which can be very difficult to work around
   HamsterDrive.setSafetyEnabled(false);
 
-  // Set deadband for the differential drive
-  HamsterDrive.setDeadband(0.1);
+  // No deadband in the differential drive, the driver inputs get theirs in drive() and the auto routines want every bit of output
+  HamsterDrive.setDeadband(0);
 
   //Set the encoder positions to zero, effectively resetting them
-  leftEncoder.setPosition(0);
-  rightEncoder.setPosition(0);
+  io.resetEncoders();
+  inputs.leftPosition = 0;
+  inputs.rightPosition = 0;
   }
 
 
 
+     //Motor rotation targets of the current profiled drive
+     static double profileLeftStart = 0;
+     static double profileRightStart = 0;
+     static double profileLeftTarget = 0;
+     static double profileRightTarget = 0;
+
+     //#STARTPROFILEDDRIVE
+     //This method sets up a profiled drive of _ inches from where the robot is now
+     public static void startProfiledDrive(double distance) {
+      double rotations = distance / Tuning.drive.wheelCircumference * Tuning.drive.gearRatio;
+      profileLeftStart = inputs.leftPosition;
+      profileRightStart = inputs.rightPosition;
+      profileLeftTarget = profileLeftStart + rotations;
+      profileRightTarget = profileRightStart + rotations;
+     }
+
+     //#PROFILEDDRIVE
+     //This method hands the targets to the SPARK MAX trapezoid profiles, adding a small heading correction
+     //The position and velocity loops run on the motor controllers at 1 kHz
+     public static void profiledDrive() {
+      double headingError = (inputs.leftPosition - profileLeftStart) - (inputs.rightPosition - profileRightStart);
+      double correction = headingError * kHeadingCorrection;
+
+      outputs.profiled = true;
+      outputs.leftTarget = profileLeftTarget;
+      outputs.rightTarget = profileRightTarget;
+      outputs.leftFeedforward = -correction;
+      outputs.rightFeedforward = correction;
+     }
+
+     //#PROFILEDDRIVEDONE
+     //This method tells if both sides are at their target and have stopped
+     public static boolean profiledDriveDone() {
+      return Math.abs(profileLeftTarget - inputs.leftPosition) < kProfilePositionTolerance
+        && Math.abs(profileRightTarget - inputs.rightPosition) < kProfilePositionTolerance
+        && Math.abs(inputs.leftVelocity) < kProfileVelocityTolerance
+        && Math.abs(inputs.rightVelocity) < kProfileVelocityTolerance;
+     }
+
+
+
      static double rightWheelRotations = 0;
      static double leftWheelRotations = 0;
 
      static double rightDistance = 0;
      static double leftDistance = 0;
 
+     //Dashboard signals for the encoder distances (50 Hz, 0.01 inch resolution)
+     private static final int kLeftDistanceSignal = Telemetry.addNumber("Left Encoder Distance", 0.01, 50);
+     private static final int kRightDistanceSignal = Telemetry.addNumber("Right Encoder Distance", 0.01, 50);
+
+     //Log signals for the encoders and motor outputs
+     private static final int kLeftPositionLog = DataLogger.addDouble("DriveTrain/LeftPosition");
+     private static final int kRightPositionLog = DataLogger.addDouble("DriveTrain/RightPosition");
+     private static final int kLeftOutputLog = DataLogger.addDouble("DriveTrain/LeftOutput");
+     private static final int kRightOutputLog = DataLogger.addDouble("DriveTrain/RightOutput");
+
      //#ENCODERMATH
      //This fucntion handles all of the math and data necessary to use the encoders
      public static void encoderMath() {
     //All the math to convert encoder rotations to horizontal distance in inches
-    rightWheelRotations = rightEncoder.getPosition() / 8.45;
-    leftWheelRotations = leftEncoder.getPosition() / 8.45;
+    double rightPosition = inputs.rightPosition;
+    double leftPosition = inputs.leftPosition;
+    rightWheelRotations = rightPosition / Tuning.drive.gearRatio;
+    leftWheelRotations = leftPosition / Tuning.drive.gearRatio;
 
-    rightDistance = rightWheelRotations * 18;
-    leftDistance = leftWheelRotations * 18;
+    rightDistance = rightWheelRotations * Tuning.drive.wheelCircumference;
+    leftDistance = leftWheelRotations * Tuning.drive.wheelCircumference;
 
     // Displays the Left and Right encoder rates on the dashboard with the specified names
-    SmartDashboard.putNumber("Left Encoder Distance", leftDistance);
-    SmartDashboard.putNumber("Right Encoder Distance", rightDistance);
+    Telemetry.setNumber(kLeftDistanceSignal, leftDistance);
+    Telemetry.setNumber(kRightDistanceSignal, rightDistance);
+
+    // Records the encoder positions and motor outputs for the match log
+    DataLogger.setDouble(kLeftPositionLog, leftPosition);
+    DataLogger.setDouble(kRightPositionLog, rightPosition);
+    DataLogger.setDouble(kLeftOutputLog, outputs.leftOutput);
+    DataLogger.setDouble(kRightOutputLog, outputs.rightOutput);
      }
 
 
 
+     //DRIVER INPUT SHAPING
+     //Forward: deadband, expo for fine control at low speed, capped at 80%, and a slew rate so the robot does not tip
+     private static final InputShaper forwardShaper = new InputShaper().deadband(0.1).expo(0.6).scale(0.8).slewRate(4.0);
+     //Turn: deadband, expo, capped at 82% (no slew rate, turning has to respond right away)
+     private static final InputShaper turnShaper = new InputShaper().deadband(0.1).expo(0.6).scale(0.82);
+
      //#DRIVE
-     //This method determines what to do with the motors based on the controller input
+     //This method drives the robot from the sticks sampled by DriverInput this loop
      public static void drive() {
-      // Get the value of the Y-Axis on the joystick
-    double forward = IO.dController.getLeftY();
-
-    // Adjust Speed/Power so that it will always be at a max of 80%
-    double change = 0;
+    double dt = DriverInput.getDt();
 
-    if (forward < 0) change = 0.2;
-    if (forward > 0) change = -0.2;
+    // Forward on the Y-Axis of the left stick, turn on the X-Axis of the right stick
+    double forwardPower = forwardShaper.apply(DriverInput.getLeftY(), dt);
+    double turnPower = turnShaper.apply(DriverInput.getRightX(), dt);
 
-    double forwardPower = forward + change;
-
-    // Set turn to the value of the X-Axis on the joystick
-    double turn = IO.dController.getRightX();
-
-    // Reduce Turn Power
-    double turnPower = turn *= 0.82;
+    // The shapers already apply the deadband and curve, so the drive is told not to square the inputs again
+    HamsterDrive.arcadeDrive(forwardPower, turnPower, false);
+     }
 
-    // Drive the Robot with <forwardPower> and <turnPower>
-    if (IO.dController.getRightX() > 0.1 || IO.dController.getRightX() < -0.1 || IO.dController.getLeftY() > 0.1 || IO.dController.getLeftY() < -0.1) {
-    HamsterDrive.arcadeDrive(forwardPower, turnPower);
-    } else {
-    HamsterDrive.arcadeDrive(0, 0, false);
-    }
+     //#RESETINPUTS
+     //This method puts the slew rate back to standing still, called when teleop starts
+     public static void resetInputs() {
+    forwardShaper.reset(0);
+    turnShaper.reset(0);
      }
 
 
@@ -0,0 +1,116 @@
+package frc.robot.subsystems;
+
+import java.io.IOException;
+
+import edu.wpi.first.apriltag.AprilTag;
+import edu.wpi.first.apriltag.AprilTagFieldLayout;
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+
+public class FieldLayout {
+
+    //Layout file in src/main/deploy, in the WPILib AprilTagFieldLayout JSON format
+    private static final String kLayoutFile = "2024-crescendo.json";
+
+    //Tag poses (meters and radians, WPILib blue-origin field coordinates), one slot per ID so a lookup is a single index
+    //Yaw is the direction the tag faces
+    private static double[] tagX = new double[0];
+    private static double[] tagY = new double[0];
+    private static double[] tagZ = new double[0];
+    private static double[] tagYaw = new double[0];
+    //Written last in load() and read first by hasTag(), volatile so any thread that looks up a tag sees the arrays above filled in
+    private static volatile boolean[] present = new boolean[0];
+
+    private static double fieldLength = 0;
+    private static double fieldWidth = 0;
+
+    //#LOAD
+    //This method reads the layout file, it is called once in robotInit before anything asks for a tag
+    //A missing or broken file leaves the table empty, so vision ranging is skipped instead of crashing the robot
+    public static void load() {
+        AprilTagFieldLayout layout;
+        try {
+            layout = new AprilTagFieldLayout(Filesystem.getDeployDirectory().toPath().resolve(kLayoutFile));
+        } catch (IOException e) {
+            DriverStation.reportError("Could not load the AprilTag field layout " + kLayoutFile + ": " + e.getMessage(), false);
+            return;
+        }
+
+        int maxID = 0;
+        for (AprilTag tag : layout.getTags()) maxID = Math.max(maxID, tag.ID);
+
+        double[] x = new double[maxID + 1];
+        double[] y = new double[maxID + 1];
+        double[] z = new double[maxID + 1];
+        double[] yaw = new double[maxID + 1];
+        boolean[] has = new boolean[maxID + 1];
+        for (AprilTag tag : layout.getTags()) {
+            if (tag.ID < 0) continue;
+            x[tag.ID] = tag.pose.getX();
+            y[tag.ID] = tag.pose.getY();
+            z[tag.ID] = tag.pose.getZ();
+            yaw[tag.ID] = tag.pose.getRotation().getZ();
+            has[tag.ID] = true;
+        }
+
+        tagX = x;
+        tagY = y;
+        tagZ = z;
+        tagYaw = yaw;
+        fieldLength = layout.getFieldLength();
+        fieldWidth = layout.getFieldWidth();
+        present = has;
+
+        DriverStation.reportWarning("Field layout: " + layout.getTags().size() + " AprilTags loaded from " + kLayoutFile, false);
+    }
+
+    //#HASTAG
+    //This method tells if a tag ID is in the layout (the limelight reports -1 when it sees nothing)
+    public static boolean hasTag(int id) {
+        boolean[] has = present;
+        return id >= 0 && id < has.length && has[id];
+    }
+
+    //#GETTERS
+    //Tag position and facing, only meaningful when hasTag(id) is true
+    public static double getTagX(int id) {
+        return tagX[id];
+    }
+
+    public static double getTagY(int id) {
+        return tagY[id];
+    }
+
+    public static double getTagZ(int id) {
+        return tagZ[id];
+    }
+
+    public static double getTagYaw(int id) {
+        return tagYaw[id];
+    }
+
+    public static int getMaxID() {
+        return present.length - 1;
+    }
+
+    public static double getFieldLength() {
+        return fieldLength;
+    }
+
+    public static double getFieldWidth() {
+        return fieldWidth;
+    }
+
+    //#GETRANGE
+    //This method returns the distance along the floor from a field position to a tag (meters)
+    public static double getRange(int id, double x, double y) {
+        return Math.hypot(tagX[id] - x, tagY[id] - y);
+    }
+
+    //#GETBEARING
+    //This method returns the angle from a robot heading to a tag (radians, counterclockwise positive, -pi to pi)
+    public static double getBearing(int id, double x, double y, double heading) {
+        return MathUtil.angleModulus(Math.atan2(tagY[id] - y, tagX[id] - x) - heading);
+    }
+}
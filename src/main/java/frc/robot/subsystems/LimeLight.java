@@ -1,19 +1,44 @@
 package frc.robot.subsystems;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
-import edu.wpi.first.networktables.NetworkTable;
-import edu.wpi.first.networktables.NetworkTableEntry;
-import edu.wpi.first.networktables.NetworkTableInstance;
+import frc.robot.Tuning;
+import frc.robot.Tuning.VisionConfig;
+import frc.robot.io.InputLog;
+import frc.robot.io.RobotIO;
+import frc.robot.io.VisionIO;
+import frc.robot.util.DataLogger;
+import frc.robot.util.Telemetry;
+import frc.robot.util.VisionFrame;
+import frc.robot.util.VisionFrameQueue;
+import frc.robot.util.VisionSnapshot;
+import frc.robot.util.VisionTarget;
 
-import edu.wpi.first.wpilibj.Timer; //Unused, but here.
+import edu.wpi.first.math.util.Units;
+
+import edu.wpi.first.wpilibj.Timer;
 
 public class LimeLight {
-    //setup networktable upon creation
-    private NetworkTable nTable = NetworkTableInstance.getDefault().getTable("limelight");
-    private NetworkTableEntry tx = nTable.getEntry("tx");
-    private NetworkTableEntry ty = nTable.getEntry("ty");
-    private NetworkTableEntry ta = nTable.getEntry("ta");
-    private NetworkTableEntry tv = nTable.getEntry("tv");
-    private NetworkTableEntry tid = nTable.getEntry("tid");
+    //FRAMES
+    //The camera: the limelight over NetworkTables on the robot, RobotSim in simulation, nothing in log replay
+    private final VisionIO io;
+    //The vision worker (the thread the IO reads the camera on) processes every frame as it arrives
+    //and publishes the result to the snapshot, which postValues() reads once per loop without locking
+    private final VisionSnapshot snapshot = new VisionSnapshot();
+    //Only touched by the worker thread
+    private final VisionTarget working = new VisionTarget();
+    private boolean workingHasTarget = false;
+    //Processed frames for the robot loop, so no AprilTag pose is skipped between loops (if the loop falls behind the oldest go first)
+    private final VisionFrameQueue frameQueue = new VisionFrameQueue(16);
+    //Only touched by the robot loop: the worker's output since the last loop, which is what the match log records
+    //and what log replay hands back, and the newest target out of it
+    private final VisionIO.Inputs inputs = new VisionIO.Inputs();
+    private final int inputsHandle;
+    private final VisionTarget target = inputs.target;
+    private long targetSequence = -1;
+    //Frames handed to the robot loop so far
+    private long loopFrames = 0;
+    //Frames older than this are not acted on (seconds)
+    private final double maxFrameAge = 0.1;
+    //Time constant of the low-pass filters on distance and tx (seconds)
+    private final double filterTimeConstant = 0.05;
 
     private double currentX; // X value is horizontal angle from center of LL camera
     private double currentY; // Y value is vertical angle from center of LL camera
@@ -22,213 +47,242 @@ public class LimeLight {
     private double curTargetID; //Double value designating the current visible AprilTag.
 
     private double estimDist = 0.0;
-    private double showTurnPower = 0.0;
-    //BOOLEANS
-    private boolean enabled = false;
-    private boolean targetFound = false;
-    private boolean inPosition = false;
-    //TIMERS
-    private final Timer seekTimer = new Timer();
-    private final Timer driveTimer = new Timer();
-    private final Timer refreshTimer = new Timer();
-    //HEIGHTS                                     ID 1   ID 2 ID 3 ID 4 ID 5 ID 6    ID 7 
-    //ID #s are the number minus 1.
-    private final double[] heightArray = {50.125, 53.88, 0.0, 0.0, 0.0, 0.0, 50.125, 53.88};
-
-    //CONSTANTS
-    //Physical distance of limelight LENS from ground (measured in INCHES)
-    private final double LensDistFromGround = 11.25;
-    //Physical vertical angle of lens from mount (measured in DEGREES).
-    private final double LensAngleFromMount = 41.9;
-    //Physical height of chosen AprilTag.
-    //If needed, create a table that holds the AprilTag IDs and its height from the ground.
-    // private final double targetHeight = 53.88;
-    //Correction modifier. I assume it designates how much of a correction you want.
-    private final double correctionMod = -.1;
-    //Preset distance from target.
-    //Could put it in an array and designate it to an AprilTag.
-    private final double desiredDist = 36.0;
+
+    //DASHBOARD SIGNALS
+    private static final int kXSignal = Telemetry.addNumber("LimelightX", 0.05, 20);
+    private static final int kYSignal = Telemetry.addNumber("LimelightY", 0.05, 20);
+    private static final int kAreaSignal = Telemetry.addNumber("LimelightArea", 0.05, 10);
+    private static final int kSeesTargetSignal = Telemetry.addNumber("LimeLightSeesTarget", 0.5, 10);
+    private static final int kDistSignal = Telemetry.addNumber("DistFromTarget", 0.1, 20);
+    private static final int kTargetIDSignal = Telemetry.addNumber("VisibleTargetID", 0.5, 10);
+    private static final int kTurnPowerSignal = Telemetry.addNumber("TurnPowerAdjust", 0.005, 20);
+
+    //LOG SIGNALS
+    private static final int kXLog = DataLogger.addDouble("LimeLight/tx");
+    private static final int kYLog = DataLogger.addDouble("LimeLight/ty");
+    private static final int kAreaLog = DataLogger.addDouble("LimeLight/ta");
+    private static final int kSeesTargetLog = DataLogger.addDouble("LimeLight/tv");
+    private static final int kTargetIDLog = DataLogger.addDouble("LimeLight/tid");
+    private static final int kLatencyLog = DataLogger.addDouble("LimeLight/LatencyMs");
+    private static final int kCaptureTimeLog = DataLogger.addDouble("LimeLight/CaptureTime");
+    private static final int kFilteredDistLog = DataLogger.addDouble("LimeLight/FilteredDistance");
+    //Running totals, so a log loop that spans two vision loops still counts every frame
+    private static final int kFramesLog = DataLogger.addDouble("LimeLight/Frames");
+    private static final int kDroppedFramesLog = DataLogger.addDouble("LimeLight/DroppedFrames");
 
     //#LIMELIGHT
     /* Constructor. Assigns values to the coordinate variables above.
+     * Without an IO it picks the one for the robot, simulation or log replay.
     */
     public LimeLight(){
-        //Start catching limelight values
-        currentX = tx.getDouble(0.0);
-        currentY = ty.getDouble(0.0);
-        currentArea = ta.getDouble(0.0);
-        seesTarget = tv.getDouble(0.0);
-        curTargetID = tid.getDouble(0.0);
+        this(RobotIO.vision());
+    }
+
+    public LimeLight(VisionIO io){
+        this.io = io;
+        inputsHandle = InputLog.register("Vision", inputs);
+        //Start processing frames as they arrive
+        io.start(this::onFrame);
         //Make them visible (via SmartDashboard)
-        SmartDashboard.putNumber("LimelightX", this.currentX);
-        SmartDashboard.putNumber("LimelightY", this.currentY);
-        SmartDashboard.putNumber("LimelightArea", this.currentArea);
-        SmartDashboard.putNumber("LimeLightSeesTarget", this.seesTarget);
-        SmartDashboard.putNumber("DistFromTarget", estimDist);
-        SmartDashboard.putNumber("VisibleTargetID", this.curTargetID);
+        Telemetry.setNumber(kXSignal, this.currentX);
+        Telemetry.setNumber(kYSignal, this.currentY);
+        Telemetry.setNumber(kAreaSignal, this.currentArea);
+        Telemetry.setNumber(kSeesTargetSignal, this.seesTarget);
+        Telemetry.setNumber(kDistSignal, estimDist);
+        Telemetry.setNumber(kTargetIDSignal, this.curTargetID);
+    }
+    //#ONFRAME
+    /* Runs on the vision worker thread every time the camera finishes a frame.
+     * Computes the target and publishes it, then queues the frame for the robot loop.
+     */
+    private void onFrame(VisionFrame frame){
+        processFrame(frame);
+        snapshot.publish(working);
+        frameQueue.claim().copyFrom(frame);
+        frameQueue.publish();
+    }
+    //#PROCESSFRAME
+    /* Runs on the vision worker thread: range, filtered estimates and turn power of one frame.
+     * The filters start over whenever the target is lost or the primary tag changes.
+     */
+    private void processFrame(VisionFrame frame){
+        double lastCaptureTime = working.captureTime;
+        double lastID = working.tid;
+
+        working.frameCount++;
+        working.captureTime = frame.captureTime;
+        working.latencyMs = frame.latencyMs;
+        working.tx = frame.tx;
+        working.ty = frame.ty;
+        working.ta = frame.ta;
+        working.tv = frame.tv;
+        working.tid = frame.tid;
+        working.turnPower = turnPower(frame.tx);
 
-        enabled = true;
+        double distance = rangeFrame(frame);
+        boolean hasTarget = frame.tv == 1.0 && !Double.isNaN(distance);
+        //Keeps the last distance when no known tag is visible
+        if (!Double.isNaN(distance)) working.distance = distance;
+
+        if (hasTarget && workingHasTarget && frame.tid == lastID){
+            double dt = Math.max(frame.captureTime - lastCaptureTime, 0.0);
+            double alpha = dt / (filterTimeConstant + dt);
+            working.filteredDistance += alpha * (distance - working.filteredDistance);
+            working.filteredTx += alpha * (frame.tx - working.filteredTx);
+        } else if (hasTarget){
+            working.filteredDistance = distance;
+            working.filteredTx = frame.tx;
+        }
+        workingHasTarget = hasTarget;
+    }
+    //#ISFRESH
+    /* True when the newest frame is recent enough to act on.
+     */
+    public boolean isFresh(){
+        return target.frameCount > 0 && Timer.getFPGATimestamp() - target.captureTime <= maxFrameAge;
+    }
+    //#GETCAPTURETIME
+    /* Robot time (FPGA seconds) at which the newest frame was captured, used for latency compensation.
+     */
+    public double getCaptureTime(){
+        return target.captureTime;
     }
     //#ESTIMATEDIST
-    /* Does math to estimate the distance from the limelight to the target.
-        Assumes that robot is centered on target.
+    /* Estimated distance (inches) from the limelight to the primary target, worked out by the vision worker
+     * for the newest frame (see rangeFrame). The filtered one is steadier but lags a little.
      */
-    private double targetHeight = 0.0;
     public double estimateDist(){
-        int tempID = (int) curTargetID;
-        if (tempID > 0.0){
-            targetHeight = heightArray[tempID];
-        }
-        double radAngle = Math.toRadians(this.currentY + LensAngleFromMount);
-
-        //Simple trigonometry to return distance from given angle 
-        double distFromGoal = ((targetHeight - LensDistFromGround) / Math.tan(radAngle));
-        estimDist = distFromGoal;
-        return distFromGoal;
+        return target.distance;
     }
-    //#STOP
-    /* Force-Stops all limelight functionality.
-     * Used whenever the time-out limit is reached to prevent penalties.
-    */
-    public void stop(){
-        seekTimer.stop();
-        seekTimer.reset();
-        driveTimer.stop();
-        driveTimer.reset();
-        refreshTimer.stop();
-        refreshTimer.reset();
-        enabled = false;
-        targetFound = false;
-        inPosition = false;
-    }
-    //#START
-    /*Enables the limelight.
-     * Allows for multi-use of autonomous.
+
+    //#GETFRAME
+    /* The newest frame's count (goes up by one per processed frame), raw tx (degrees, positive to the right)
+     * and whether it has a target that is fresh enough to act on.
      */
-    public void start(){
-        enabled = true;
-        targetFound = false;
-        inPosition = false;
-    }
-    //#GETINRANGEUSINGAREA
-    /*An alternative to getInRangeUsingDistance. 
-     * Approaches the target using the total area taken rather than a set distance.
-     * Used for getting rough approaches.
+    public long getFrameCount(){
+        return target.frameCount;
+    }
+
+    public double getX(){
+        return target.tx;
+    }
+
+    public boolean hasTarget(){
+        return seesTarget == 1.0;
+    }
+
+    public double getFilteredDist(){
+        return target.filteredDistance;
+    }
+
+    public double getFilteredX(){
+        return target.filteredTx;
+    }
+    //#RANGEFRAME
+    /* Does math to estimate the distance (inches) from the limelight to the primary target of a frame.
+     * Every visible tag gives a camera position on the field from its range and bearing,
+     * and the average of them is ranged to the primary tag, so extra tags make it steadier.
+     * The bearings are turned onto the field with the heading the limelight solved from the same tags (botpose),
+     * so a frame without a pose is ranged from the primary tag alone, which needs no heading.
+     * With one tag this is the plain height/angle trigonometry. Returns NaN when no known tag is visible.
      */
-    public void getInRangeUsingArea(DriveTrain driveTrain){
-        if(driveTimer.get() > 3.0 && seesTarget == 0.0){
-            driveTrain.HamsterDrive.arcadeDrive(0, 0);
-            stop();
+    private double rangeFrame(VisionFrame frame){
+        //One set of mounting values for the whole frame, a live retune lands on the next one
+        VisionConfig tuning = Tuning.vision;
+        double heading = Math.toRadians(frame.poseYaw);
+        double sumX = 0.0;
+        double sumY = 0.0;
+        int used = 0;
+        int firstID = -1;
+        for (int i = 0; i < frame.tagCount; i++){
+            int id = frame.tagIDs[i];
+            if (!FieldLayout.hasTag(id)) continue;
+            if (!frame.hasPose && id != (int) frame.tid) continue;
+            double range = tagRange(id, frame.tagTy[i], tuning);
+            //A tag at or above the horizon of the lens cannot be ranged
+            if (!(range > 0.0)) continue;
+            //tx is positive to the right, field angles are counterclockwise
+            double direction = heading - Math.toRadians(frame.tagTx[i]);
+            sumX += FieldLayout.getTagX(id) - range * Math.cos(direction);
+            sumY += FieldLayout.getTagY(id) - range * Math.sin(direction);
+            if (used == 0) firstID = id;
+            used++;
         }
-         if (enabled){
-            if (driveTimer.get() == 0.0 && targetFound) {driveTimer.start(); refreshTimer.start();}
-            if (driveTimer.get() > 0.0){
-                if (currentArea <= 15.0){
-                    double speed = -.35;
-                    driveTrain.HamsterDrive.arcadeDrive(speed, 0);
-                } else {
-                    driveTrain.HamsterDrive.arcadeDrive(0, 0);
-                    stop();
-                }
-            }
-        }  
+        if (used == 0) return Double.NaN;
+
+        int targetID = FieldLayout.hasTag((int) frame.tid) ? (int) frame.tid : firstID;
+        return Units.metersToInches(FieldLayout.getRange(targetID, sumX / used, sumY / used));
     }
-    //#GETINRANGEUSINGDISTANCE
-    /* Allows the robot to precisely get in range of a target.
-     * THEORETICALLY should work.
+    //#TAGRANGE
+    /* Distance along the floor from the lens to a tag (meters), from the tag height and its vertical angle.
+     * Tag heights come from the field layout (FieldLayout), which is in meters.
      */
-    private double speed = .45;
-    public void getInRangeUsingDistance(DriveTrain driveTrain){
-        if(driveTimer.get() > 3.0 && refreshTimer.get() > 3.0){
-            driveTrain.HamsterDrive.arcadeDrive(0, 0);
-            stop();
-        }
-        if (enabled){
-            if (driveTimer.get() == 0.0 && targetFound) {driveTimer.start(); refreshTimer.start();}
-            if (driveTimer.get() > 0.0){
-                if(seesTarget == 1.0){
-                    refreshTimer.reset();
-                    refreshTimer.start();
-                }
-                //Estimate distance from target and the distance error.
-                double currentDist = estimateDist();
-                double distError = desiredDist - currentDist; //Distance from desired point. Calculated in Inches.
-                if (distError > 2.5 || distError < -2.5){
-                    //Calculate driving adjust percentage for turning.
-                    double drivingAdjust  = ((correctionMod * distError) * .1); //% of angle (i think)
-                    //Cap the speed at 45% and set the floor at 25%
-                    if (drivingAdjust > 0) speed = -.45;
-                    else if (drivingAdjust < 0) speed = .45;
-                    // if (drivingAdjust < .325 && drivingAdjust > 0.0) speed = .325;
-                    // else if (drivingAdjust > -.325 && drivingAdjust < 0.0) speed = -.325;
-                    //Cap turn power at 35% of value
-                    double turnPower = -Math.pow((this.currentX*.1), 3);
-                    if (turnPower < -.35)
-                        turnPower = -.35;
-                    else if (turnPower > .35)
-                        turnPower = .35;
-                    showTurnPower = turnPower;
-                    driveTrain.HamsterDrive.arcadeDrive(speed, turnPower);
-                } else {
-                    driveTrain.HamsterDrive.arcadeDrive(0, 0);
-                    stop();
-                }
-            }
-        }  
+    private double tagRange(int id, double tagTy, VisionConfig tuning){
+        double radAngle = Math.toRadians(tagTy + tuning.lensAngle);
+        return (FieldLayout.getTagZ(id) - Units.inchesToMeters(tuning.lensHeight)) / Math.tan(radAngle);
     }
-    /*#SEEKTARGET
-     * Turns the robot until the limelight catches a glimpse of the target
-     * On the robot seeing it, centers on the target with a .5 degree range of error.
-     * Unknown which way the directions are.
+    //#TURNPOWER
+    /* Cubic turn shaping on the horizontal offset, capped at 35%.
+     * x*x*x instead of Math.pow(x, 3): same result without the general pow routine.
      */
-    private double steeringPow = .3;
-    public void seekTarget(DriveTrain driveTrain){
-        if (seekTimer.get() > 10.0 && seesTarget == 0.0){
-            driveTrain.HamsterDrive.arcadeDrive(0, 0);
-            stop();
-        }
-        if (enabled) {
-           if (seekTimer.get() <= 0.0 && !targetFound) seekTimer.start();
-           if (seekTimer.get() > 0.0 && !targetFound){
-            //If target isn't in view, set steeringPow to be a consistent .3. 
-                if (seesTarget == 0.0){
-                    steeringPow = .35;
-                    driveTrain.HamsterDrive.arcadeDrive(0, steeringPow);
-                } else {
-                    //Else if it is visible then...
-                    //Runs if it is not in the threshold.
-                    if ((currentX > 5.0 || currentX < -5.0) && seesTarget != 0.0){
-                        if (currentX > 0.0) steeringPow = -.35;
-                        else if (currentX < 0.0) steeringPow = .35;
-                        driveTrain.HamsterDrive.arcadeDrive(0, steeringPow);
-                    } else if ((currentX < 5 && currentX > -5) && seesTarget != 0.0){
-                        //We have found the target. Stop turning.
-                        driveTrain.HamsterDrive.arcadeDrive(0, 0);
-                        seekTimer.stop();
-                        seekTimer.reset();
-                        targetFound = true;
-                    }
-                }
-           }
-        }
+    public static double turnPower(double currentX){
+        double scaled = currentX * .1;
+        double turnPower = -(scaled * scaled * scaled);
+        if (turnPower < -.35)
+            turnPower = -.35;
+        else if (turnPower > .35)
+            turnPower = .35;
+        return turnPower;
     }
     //#POSTVALUES
     /* Post values from the limelight to variables, then relays them to SmartDashboard for human viewing. 
     */
     public void postValues(){
-        //Get values from the limelight.
-        currentX = tx.getDouble(0.0);
-        currentY = ty.getDouble(0.0);
-        currentArea = ta.getDouble(0.0);
-        seesTarget = tv.getDouble(0.0);
-        curTargetID = tid.getDouble(0.0);
+        //The worker's output since the last loop: its processed frames, up to Inputs.kMaxFrames (the rest wait for the next loop),
+        //and the newest target, only copied when it changed.
+        int count = 0;
+        while (count < VisionIO.Inputs.kMaxFrames && frameQueue.poll(inputs.frames[count])) count++;
+        inputs.frameCount = count;
+        long sequence = snapshot.getSequence();
+        if (sequence != targetSequence) {
+            snapshot.read(target);
+            targetSequence = sequence;
+        }
+        //Recorded to the match log or, in log replay, read back from it. Every frame is in there, not just the newest.
+        InputLog.process(inputsHandle);
+        loopFrames += inputs.frameCount;
+        //Oldest first: each AprilTag pose goes to the pose estimator with its capture time.
+        for (int i = 0; i < inputs.frameCount; i++) {
+            VisionFrame frame = inputs.frames[i];
+            if (frame.hasPose) {
+                PoseEstimator.addVisionMeasurement(frame.poseX, frame.poseY, Math.toRadians(frame.poseYaw), frame.captureTime);
+            }
+        }
+        currentX = target.tx;
+        currentY = target.ty;
+        currentArea = target.ta;
+        curTargetID = target.tid;
+        estimDist = target.distance;
+        //A stale frame counts as not seeing the target
+        seesTarget = isFresh() ? target.tv : 0.0;
         //Post SmartDashboard values
-        SmartDashboard.putNumber("LimelightX", this.currentX);
-        SmartDashboard.putNumber("LimelightY", this.currentY);
-        SmartDashboard.putNumber("LimelightArea", this.currentArea);
-        SmartDashboard.putNumber("LimeLightSeesTarget", this.seesTarget);
-        SmartDashboard.putNumber("DistFromTarget", estimDist);
-        SmartDashboard.putNumber("VisibleTargetID", this.curTargetID);
-        SmartDashboard.putNumber("TurnPowerAdjust", showTurnPower);
+        Telemetry.setNumber(kXSignal, this.currentX);
+        Telemetry.setNumber(kYSignal, this.currentY);
+        Telemetry.setNumber(kAreaSignal, this.currentArea);
+        Telemetry.setNumber(kSeesTargetSignal, this.seesTarget);
+        Telemetry.setNumber(kDistSignal, estimDist);
+        Telemetry.setNumber(kTargetIDSignal, this.curTargetID);
+        Telemetry.setNumber(kTurnPowerSignal, target.turnPower);
+        //Record the newest target and the frame counts for the match log
+        DataLogger.setDouble(kXLog, target.tx);
+        DataLogger.setDouble(kYLog, target.ty);
+        DataLogger.setDouble(kAreaLog, target.ta);
+        DataLogger.setDouble(kSeesTargetLog, this.seesTarget);
+        DataLogger.setDouble(kTargetIDLog, target.tid);
+        DataLogger.setDouble(kLatencyLog, target.latencyMs);
+        DataLogger.setDouble(kCaptureTimeLog, target.captureTime);
+        DataLogger.setDouble(kFilteredDistLog, target.filteredDistance);
+        DataLogger.setDouble(kFramesLog, loopFrames);
+        DataLogger.setDouble(kDroppedFramesLog, frameQueue.getDroppedFrames());
     }
 }
@@ -1,68 +1,80 @@
 package frc.robot.subsystems;
 
-import com.revrobotics.CANSparkMax;
-import com.revrobotics.RelativeEncoder;
-import com.revrobotics.CANSparkMaxLowLevel.MotorType;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import frc.robot.Tuning;
+import frc.robot.DriverInput;
+import frc.robot.io.InputLog;
+import frc.robot.io.ManipulatorIO;
+import frc.robot.io.RobotIO;
+import frc.robot.util.DataLogger;
+import edu.wpi.first.wpilibj2.command.Subsystem;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
-import frc.robot.Constants;
-import frc.robot.IO;
-import edu.wpi.first.wpilibj.DigitalInput;
-import edu.wpi.first.wpilibj.Timer;
 
 public class Manipulator {
     
-    //Create the motor controller objects
-    static CANSparkMax leftBaseMotor = new CANSparkMax(Constants.leftBaseID, MotorType.kBrushed);
-    static CANSparkMax rightBaseMotor = new CANSparkMax(Constants.rightBaseID, MotorType.kBrushed);
-    static CANSparkMax ampMotor = new CANSparkMax(Constants.ampID, MotorType.kBrushless);
-    static CANSparkMax intakeMotor = new CANSparkMax(Constants.intakeID, MotorType.kBrushless);
-
-    //Create the encoder objects
-    static RelativeEncoder leftBaseEncoder = leftBaseMotor.getEncoder();
-    static RelativeEncoder rightBaseEncoder = rightBaseMotor.getEncoder();
-    static RelativeEncoder ampEncoder = ampMotor.getEncoder();
-    static RelativeEncoder intakeEncoder = intakeMotor.getEncoder();
-
-    //Create the digital input objects
-    static DigitalInput beamSensor = new DigitalInput(Constants.beamSensorID);
-    static DigitalInput magneticSensor = new DigitalInput(Constants.magneticSensorID);
+    //The manipulator hardware, shared with the Pivot, Shooter and NoteTracker:
+    //SPARK MAX controllers and digital inputs on the robot, the RobotSim model in simulation, nothing in log replay
+    static final ManipulatorIO io = RobotIO.manipulator();
+    //Everything read from the hardware this loop, and everything to send at the end of it
+    static final ManipulatorIO.Inputs inputs = new ManipulatorIO.Inputs();
+    static final ManipulatorIO.Outputs outputs = new ManipulatorIO.Outputs();
+    private static final int kInputsHandle = InputLog.register("Manipulator", inputs);
+    //What commands that run the intake or the amp wheels require, so two of them never run at once (the Pivot has its own)
+    public static final Subsystem requirement = new SubsystemBase() {};
+
+    //Largest base output while MotionHealth says the base is stalled, still enough to hold it up against gravity
+    private static final double kStalledBaseOutput = 0.1;
+
+    //Log signals for the motor outputs (the Pivot logs the base, the Shooter the amp wheels, the NoteTracker the beam sensor)
+    private static final int kIntakeOutputLog = DataLogger.addDouble("Manipulator/IntakeOutput");
 
     //#INITIALIZEMANIPULATOR
     //This method will set up the manipulator for use
     public static void initializeManipulator() {
 
-        //Reset the motors to their factory defaults
-        leftBaseMotor.restoreFactoryDefaults();
-        rightBaseMotor.restoreFactoryDefaults();
-        ampMotor.restoreFactoryDefaults();
-        intakeMotor.restoreFactoryDefaults();
-
-        //Set the leftBaseMotor as a follower
-        leftBaseMotor.follow(rightBaseMotor);
-        leftBaseMotor.setInverted(true);
-
-        //Set the encoders to 0, effectively resetting them
-        leftBaseEncoder.setPosition(0);
-        rightBaseEncoder.setPosition(0);
-        ampEncoder.setPosition(0);
-        intakeEncoder.setPosition(0);
+        //Describe the motor controllers, MotorConfigManager only restores defaults and burns flash when this changes
+        //Every motor reports its current at 50 ms for the PowerGovernor
+        io.configure();
+
+        //Watch the beam sensor with interrupts, so the intake stops the moment a note arrives instead of on the next loop
+        NoteTracker.initialize(io);
     }
 
+    //#UPDATEINPUTS
+    //This method reads everything the manipulator code uses from the hardware, called by SensorSnapshot at the start of every loop
+    public static void updateInputs() {
+        io.updateInputs(inputs);
+        InputLog.process(kInputsHandle);
+    }
 
+    //#APPLYOUTPUTS
+    //This method sends the outputs picked this loop to the hardware, once at the end of every loop
+    public static void applyOutputs() {
+        //The intake only pulls a note in while the NoteTracker is waiting for one, so a note that arrived
+        //after intake() was called this loop is not pushed past the beam sensor
+        if (outputs.intakeOutput > 0 && NoteTracker.getState() != NoteTracker.kIntaking) outputs.intakeOutput = 0;
+
+        //A jammed intake is stopped and a stalled base held back until MotionHealth clears them, then they try again
+        //The picked outputs are put back after sending, so the cuts do not build up over loops
+        double intake = outputs.intakeOutput;
+        double base = outputs.baseOutput;
+        double baseMax = outputs.baseMaxOutput;
+        if (MotionHealth.hasEvent(MotionHealth.kIntake, MotionHealth.kJam)) outputs.intakeOutput = 0;
+        if (MotionHealth.hasEvent(MotionHealth.kBase, MotionHealth.kStall)) {
+            outputs.baseOutput = Math.max(-kStalledBaseOutput, Math.min(kStalledBaseOutput, base));
+            outputs.baseMaxOutput = Math.min(baseMax, kStalledBaseOutput);
+        }
+        io.applyOutputs(outputs);
+        outputs.intakeOutput = intake;
+        outputs.baseOutput = base;
+        outputs.baseMaxOutput = baseMax;
+    }
 
-    //#AMPPOSITION
-    //This method will run the manipulator base motors until the magnetic sensor is triggered at the amp spitting position
-    public static void ampPosition() {
 
-        if (!magneticSensor.get()) {
-            rightBaseMotor.set(-0.3);
-        } else if (magneticSensor.get()) {
-            rightBaseMotor.set(0);
-            rightBaseEncoder.setPosition(0);
-            leftBaseEncoder.setPosition(0);
-        }
 
+    //#AMPPOSITION
+    //This method will bring the manipulator down to the amp spitting position, where the magnetic sensor zeroes the base
+    public static void ampPosition() {
+        Pivot.goTo(Pivot.kAmp);
     }
 
 
@@ -70,130 +82,109 @@ public class Manipulator {
     //#SHOOTPOSITION
     //This method will bring the manipulator to a position for it to shoot from
     public static void shootPosition() {
-        if (rightBaseEncoder.getPosition() <= Constants.shootPosition) {
-            rightBaseMotor.set(0.3);
-        } else {
-            rightBaseMotor.set(0);
-        }
+        Pivot.goTo(Pivot.kShoot);
     }
 
 
         //#MANIPULATORDASHBOARD
         //This method updates the dashboard with all the data from the manipulator class
         public static void manipulatorDashboard() {
-            //Push the digital sensor data to the shuffleboard
-            SmartDashboard.putBoolean("Beam Sensor", beamSensor.get());
-            SmartDashboard.putBoolean("Magnetic Sensor", magneticSensor.get());
+            //Record the motor outputs for the match log
+            DataLogger.setDouble(kIntakeOutputLog, outputs.intakeOutput);
         }
 
 
 
         //#INTAKE
-        //This method will intake a note
+        //This method will intake a note, the NoteTracker interrupt stops the intake as soon as the note reaches the beam sensor
         public static void intake() {
-            if (!beamSensor.get()) {
-                intakeMotor.set(0.4);
-            } else {
-                intakeMotor.set(0);
-            }
+            //A note that arrives before the outputs are sent is caught by applyOutputs()
+            setIntake(NoteTracker.startIntake() ? Tuning.manipulator.intakeSpeed : 0);
         }
 
 
 
-        private static Timer shootTime = new Timer();
-
         //#SHOOTNOTE
-        //This method will shoot a note
+        //This method will shoot a note into the speaker, the Shooter feeds it once the amp wheels are at speed
         public static void shootNote() {
-
-            shootTime.reset();
-
-            //If the beam sensor is active, the intake motor runs in reverse until the beam sensor is deactivated,
-            // at which point the intake motor will stop and the amp motor will run for 1 second at full power to shoot
-            if (beamSensor.get()) {
-                intakeMotor.set(-0.4);
-            } else if (!beamSensor.get()) {
-                shootTime.start();
-                intakeMotor.set(0);
-                ampMotor.set(1);
-            } 
-            if (!beamSensor.get() && shootTime.get() >= 1) {
-                ampMotor.set(0);
-                shootTime.stop();
-            }
+            Shooter.shoot(Shooter.kSpeaker);
         }
 
 
-        private static Timer ampTime = new Timer();
 
         //#AMPSCORE
-        //This method will score a note in the amp
+        //This method will score a note in the amp, the Shooter feeds it once the amp wheels are at speed
         public static void ampScore() {
-
-            ampTime.reset();
-
-            //If the beam sensor is active, the intake motor runs in reverse until the beam sensor is deactivated,
-            // at which point the intake motor will stop and the amp motor will run for 1.5 seconds at 40% power to score
-            if (beamSensor.get()) {
-                intakeMotor.set(-0.4);
-            } else if (!beamSensor.get()) {
-                ampTime.start();
-                intakeMotor.set(0);
-                ampMotor.set(0.3);
-            } 
-            if (!beamSensor.get() && shootTime.get() >= 1.5) {
-                ampMotor.set(0);
-                ampTime.stop();
-            }
+            Shooter.shoot(Shooter.kAmp);
         }
 
 
 
         //#MOVEMANIPULATOR
-        //This method will move the manipulator forward
+        //This method will move the manipulator forward while the trigger is held, and hold it where it is once let go
         public static void moveManipulator() {
-            if (IO.dController.getRightTriggerAxis() > 0.4) {
-                rightBaseMotor.set(0.3);
-            } else {
-                rightBaseMotor.set(0);
+            if (DriverInput.getRightTrigger() > Tuning.manipulator.triggerThreshold) {
+                Pivot.setOutput(Tuning.manipulator.manualPivotSpeed);
+                manualMove = true;
+            } else if (manualMove) {
+                Pivot.hold();
+                manualMove = false;
             }
         }
 
-        //#MOVEMANIPULATOR
-        //This method will move the manipulator forward by a set time
-        public static void moveManipulator(double moveTime) {
-            
-            Timer moveTimer = new Timer();
-            if (moveTimer.get() <= moveTime) {
-                rightBaseMotor.set(0.3);
-            } else {
-                rightBaseMotor.set(0);
-            }
-        }
+        private static boolean manualMove = false;
 
         //#CONTROLMANIPULATOR
         //This method will add keybinds for all the control methods in the manipulator class
         public static void controlManipulator() {
 
-            if (IO.dController.getXButton()) intake();
-            if (IO.dController.getRightTriggerAxis() > 0.4) moveManipulator();
-            if (IO.dController.getYButton()) ampPosition();
-            if (IO.dController.getRightBumper()) ampScore();
-            if (IO.dController.getLeftBumper()) shootNote();
+            if (DriverInput.getXButton()) intake();
+            moveManipulator();
+            if (DriverInput.getYButton()) ampPosition();
+            if (DriverInput.getAButton()) shootPosition();
+            if (DriverInput.getBButton()) Pivot.goTo(Pivot.kIntake);
+            if (DriverInput.getRightBumper()) ampScore();
+            if (DriverInput.getLeftBumper()) shootNote();
 
         }
 
 
 
-        //#AUTOMANIPULATOR
-        //This method will do all of the actions for our manipulator during auto
-        public static void autoManipulator(boolean doesIntake, boolean doesAim, boolean doesShoot, boolean doesAmp) {
-            if (doesIntake) {
-                moveManipulator(1.5);
-                intake();
-            }
-            if (doesAim) ampPosition();
-            if (doesShoot) shootNote();
-            if (doesAmp) ampScore();
+        //#SETOUTPUTS
+        //Every manipulator output goes through these, so the PowerGovernor cut applies to all of them (the Pivot applies it to the base)
+        //Package private so the Shooter can feed the note
+        static void setIntake(double speed) {
+            outputs.intakeOutput = speed * PowerGovernor.getScale(PowerGovernor.kIntake);
+        }
+
+        //#GETCURRENTS
+        //Output current of each mechanism (amps), the base adds up both of its motors
+        public static double getBaseCurrent() {
+            return Pivot.getCurrent();
+        }
+
+        public static double getAmpCurrent() {
+            return Shooter.getCurrent();
+        }
+
+        public static double getIntakeCurrent() {
+            return inputs.intakeCurrent;
+        }
+
+        //#HASNOTE
+        //This method tells if a note is sitting in front of the beam sensor
+        public static boolean hasNote() {
+            return NoteTracker.isBeamBroken();
+        }
+
+        //#STOPMANIPULATOR
+        //This method stops the intake and amp motors and holds the base where it is
+        public static void stopManipulator() {
+            Shooter.stop();
+            setIntake(0);
+            Pivot.hold();
+            //Back to empty or staged from any intake or shot, so the next intake or shot can start
+            NoteTracker.cancelIntake();
+            manualMove = false;
         }
 }
@@ -0,0 +1,278 @@
+package frc.robot.subsystems;
+
+import edu.wpi.first.math.util.Units;
+import edu.wpi.first.wpilibj.DriverStation;
+import frc.robot.SensorSnapshot;
+import frc.robot.Tuning;
+import frc.robot.io.DriveIO;
+import frc.robot.io.ManipulatorIO;
+import frc.robot.util.DataLogger;
+import frc.robot.util.Telemetry;
+
+public class MotionHealth {
+
+    //MOTORS
+    //One per encoder, a follower's current is added to its leader's
+    public static final int kLeftDrive = 0;
+    public static final int kRightDrive = 1;
+    public static final int kBase = 2;
+    public static final int kAmp = 3;
+    public static final int kIntake = 4;
+    private static final int kMotorCount = 5;
+    private static final String[] kMotorNames = {"LeftDrive", "RightDrive", "Base", "Amp", "Intake"};
+
+    //EVENTS
+    //Bits of the event mask, a motor can have more than one at a time
+    //Stall: driven hard but not moving (a mechanism against a hard stop, a drive side pushing a wall)
+    public static final int kStall = 1;
+    //Jam: a stall of the intake or amp rollers, something is caught in them
+    public static final int kJam = 2;
+    //Slip: a drive side speeding up or slowing down faster than the carpet could push the robot, the wheels have broken loose
+    public static final int kSlip = 4;
+
+    //HISTORY
+    //Samples kept for each motor, one per control loop (a little over 150 ms at 10 ms)
+    private static final int kHistorySize = 16;
+    //Velocity samples the median is taken over, enough to throw out a single bad CAN frame
+    private static final int kMedianSize = 5;
+    //Time constants of the low-pass filters (seconds)
+    private static final double kVelocityTimeConstant = 0.03;
+    private static final double kCurrentTimeConstant = 0.05;
+    private static final double kAccelTimeConstant = 0.03;
+    //Longest time step the filters take, so a stalled loop does not throw them (seconds)
+    private static final double kMaxDt = 0.1;
+
+    //STALL AND JAM LIMITS, per motor in the order above
+    //Filtered current (amps, leader and follower added up) and output (percent) that count as being driven hard
+    private static final double[] kStallCurrent = {70, 70, 45, 30, 25};
+    private static final double[] kStallOutput = {0.3, 0.3, 0.15, 0.2, 0.2};
+    //Filtered velocity (motor RPM) and travel over the whole history (motor rotations) below which the motor is not moving
+    private static final double[] kStallVelocity = {100, 100, 60, 300, 300};
+    //The amp and intake rollers send no position frame (Status 2 is unused), so their travel is always 0 and not checked
+    private static final double[] kStallTravel = {0.3, 0.3, 0.2, 0, 0};
+    //How long that has to last before the event is raised (seconds), the rollers jam faster than the drive stalls
+    private static final double[] kStallTime = {0.5, 0.5, 0.25, 0.15, 0.15};
+
+    //SLIP LIMITS
+    //Fastest a drive side can change speed while the wheels grip, about 1.2 g (meters per second squared)
+    private static final double kMaxTractionAccel = 12;
+    private static final double kSlipTime = 0.04;
+
+    //An event stays raised until its condition has been gone this long, so the reaction is not switched on and off every loop (seconds)
+    private static final double kClearTime = 0.5;
+
+    //Ring buffers of the raw samples, newest at index newest
+    private static final double[][] positionHistory = new double[kMotorCount][kHistorySize];
+    private static final double[][] velocityHistory = new double[kMotorCount][kHistorySize];
+    private static final double[][] currentHistory = new double[kMotorCount][kHistorySize];
+    private static int newest = -1;
+    private static int historyCount = 0;
+    //Scratch space for the median, so no array is made in the loop
+    private static final double[] medianScratch = new double[kMedianSize];
+
+    //Filtered values
+    private static final double[] velocity = new double[kMotorCount];
+    private static final double[] current = new double[kMotorCount];
+    private static final double[] accel = new double[kMotorCount];
+    private static double lastTime = Double.NaN;
+
+    //Event state: the raised events, and since when each condition has been true or gone (NaN when not)
+    private static final int[] events = new int[kMotorCount];
+    private static final double[] stallSince = new double[kMotorCount];
+    private static final double[] stallClearSince = new double[kMotorCount];
+    private static final double[] slipSince = new double[kMotorCount];
+    private static final double[] slipClearSince = new double[kMotorCount];
+    private static final int[] eventCount = new int[kMotorCount];
+
+    //Dashboard and log signals
+    private static final int kFaultSignal = Telemetry.addBoolean("Motor Fault", 5);
+    private static final int[] kVelocityLogs = new int[kMotorCount];
+    private static final int[] kCurrentLogs = new int[kMotorCount];
+    private static final int[] kEventLogs = new int[kMotorCount];
+
+    static {
+        for (int i = 0; i < kMotorCount; i++) {
+            kVelocityLogs[i] = DataLogger.addDouble("Health/" + kMotorNames[i] + "Velocity");
+            kCurrentLogs[i] = DataLogger.addDouble("Health/" + kMotorNames[i] + "Current");
+            kEventLogs[i] = DataLogger.addDouble("Health/" + kMotorNames[i] + "Events");
+            stallSince[i] = Double.NaN;
+            stallClearSince[i] = Double.NaN;
+            slipSince[i] = Double.NaN;
+            slipClearSince[i] = Double.NaN;
+        }
+    }
+
+    //#UPDATE
+    //This method adds the snapshot's samples to the history, filters them and raises or clears events
+    //Robot runs it right after SensorSnapshot.sample(), so the outputs sent at the end of the same loop already react
+    public static void update() {
+        double now = SensorSnapshot.getTimestamp();
+        double dt = Double.isNaN(lastTime) ? 0 : Math.min(now - lastTime, kMaxDt);
+        lastTime = now;
+
+        DriveIO.Inputs drive = DriveTrain.inputs;
+        ManipulatorIO.Inputs manipulator = Manipulator.inputs;
+        newest = (newest + 1) % kHistorySize;
+        if (historyCount < kHistorySize) historyCount++;
+        record(kLeftDrive, drive.leftPosition, drive.leftVelocity, drive.leftLeaderCurrent + drive.leftFollowerCurrent);
+        record(kRightDrive, drive.rightPosition, drive.rightVelocity, drive.rightLeaderCurrent + drive.rightFollowerCurrent);
+        record(kBase, manipulator.basePosition, manipulator.baseVelocity, manipulator.baseLeaderCurrent + manipulator.baseFollowerCurrent);
+        record(kAmp, manipulator.ampPosition, manipulator.ampVelocity, manipulator.ampCurrent);
+        record(kIntake, manipulator.intakePosition, manipulator.intakeVelocity, manipulator.intakeCurrent);
+
+        boolean fault = false;
+        for (int motor = 0; motor < kMotorCount; motor++) {
+            filter(motor, dt);
+            checkStall(motor, now);
+            if (motor == kLeftDrive || motor == kRightDrive) checkSlip(motor, now);
+            fault |= events[motor] != 0;
+
+            DataLogger.setDouble(kVelocityLogs[motor], velocity[motor]);
+            DataLogger.setDouble(kCurrentLogs[motor], current[motor]);
+            DataLogger.setDouble(kEventLogs[motor], events[motor]);
+        }
+        Telemetry.setBoolean(kFaultSignal, fault);
+    }
+
+    private static void record(int motor, double position, double rawVelocity, double rawCurrent) {
+        positionHistory[motor][newest] = position;
+        velocityHistory[motor][newest] = rawVelocity;
+        currentHistory[motor][newest] = rawCurrent;
+    }
+
+    //#FILTER
+    //Median of the last few velocities, then low-pass filters on velocity, current and the acceleration worked out from them
+    private static void filter(int motor, double dt) {
+        double lastVelocity = velocity[motor];
+        double median = median(velocityHistory[motor]);
+        if (dt <= 0) {
+            velocity[motor] = median;
+            current[motor] = currentHistory[motor][newest];
+            accel[motor] = 0;
+            return;
+        }
+        velocity[motor] += dt / (kVelocityTimeConstant + dt) * (median - velocity[motor]);
+        current[motor] += dt / (kCurrentTimeConstant + dt) * (currentHistory[motor][newest] - current[motor]);
+        double rawAccel = (velocity[motor] - lastVelocity) / dt;
+        accel[motor] += dt / (kAccelTimeConstant + dt) * (rawAccel - accel[motor]);
+    }
+
+    //Median of the newest kMedianSize samples (or all of them before the history fills), insertion sorted in the scratch array
+    private static double median(double[] history) {
+        int count = Math.min(kMedianSize, historyCount);
+        for (int i = 0; i < count; i++) {
+            double value = history[(newest - i + kHistorySize) % kHistorySize];
+            int j = i;
+            while (j > 0 && medianScratch[j - 1] > value) {
+                medianScratch[j] = medianScratch[j - 1];
+                j--;
+            }
+            medianScratch[j] = value;
+        }
+        return medianScratch[count / 2];
+    }
+
+    //#CHECKSTALL
+    //Driven hard and drawing current, but neither the encoder velocity nor the travel over the history says it is moving
+    //The rollers have no position frame, so a jam is only current and velocity for them
+    private static void checkStall(int motor, double now) {
+        boolean roller = motor == kAmp || motor == kIntake;
+        double travel = Math.abs(positionHistory[motor][newest] - positionHistory[motor][(newest + 1) % kHistorySize]);
+        boolean full = historyCount == kHistorySize;
+        boolean stalled = full
+            && Math.abs(commandedOutput(motor)) >= kStallOutput[motor]
+            && current[motor] >= kStallCurrent[motor]
+            && Math.abs(velocity[motor]) < kStallVelocity[motor]
+            && (roller || travel < kStallTravel[motor]);
+
+        //The rollers jam, everything else stalls
+        int event = roller ? kJam : kStall;
+        updateEvent(motor, event, stalled, now, kStallTime[motor], stallSince, stallClearSince);
+    }
+
+    //#CHECKSLIP
+    //A drive side changing speed faster than traction allows
+    private static void checkSlip(int motor, double now) {
+        //Motor RPM per second to wheel surface meters per second squared
+        double wheelAccel = Units.inchesToMeters(accel[motor] / 60 / Tuning.drive.gearRatio * Tuning.drive.wheelCircumference);
+        boolean slipping = Math.abs(wheelAccel) > kMaxTractionAccel;
+        updateEvent(motor, kSlip, slipping, now, kSlipTime, slipSince, slipClearSince);
+    }
+
+    //Raises an event once its condition has held for raiseTime, clears it once the condition has been gone for kClearTime
+    private static void updateEvent(int motor, int event, boolean condition, double now, double raiseTime, double[] since, double[] clearSince) {
+        if (condition) {
+            clearSince[motor] = Double.NaN;
+            if (Double.isNaN(since[motor])) since[motor] = now;
+            if ((events[motor] & event) == 0 && now - since[motor] >= raiseTime) {
+                events[motor] |= event;
+                eventCount[motor]++;
+                DriverStation.reportWarning(kMotorNames[motor] + " " + eventName(event) + " detected", false);
+            }
+        } else {
+            since[motor] = Double.NaN;
+            if ((events[motor] & event) == 0) return;
+            if (Double.isNaN(clearSince[motor])) clearSince[motor] = now;
+            if (now - clearSince[motor] >= kClearTime) events[motor] &= ~event;
+        }
+    }
+
+    private static String eventName(int event) {
+        switch (event) {
+            case kStall:
+                return "stall";
+            case kJam:
+                return "jam";
+            default:
+                return "slip";
+        }
+    }
+
+    //Percent output the code asked of a motor last loop
+    //A profiled drive side counts as driven hard while it is far from its target
+    private static double commandedOutput(int motor) {
+        DriveIO.Outputs drive = DriveTrain.outputs;
+        ManipulatorIO.Outputs manipulator = Manipulator.outputs;
+        switch (motor) {
+            case kLeftDrive:
+                return drive.profiled ? profiledCommand(drive.leftTarget, DriveTrain.inputs.leftPosition) : drive.leftOutput;
+            case kRightDrive:
+                return drive.profiled ? profiledCommand(drive.rightTarget, DriveTrain.inputs.rightPosition) : drive.rightOutput;
+            case kBase:
+                return Pivot.getOutput();
+            case kAmp:
+                return manipulator.ampOutput;
+            default:
+                return manipulator.intakeOutput;
+        }
+    }
+
+    private static double profiledCommand(double target, double position) {
+        return Math.abs(target - position) > DriveTrain.kProfilePositionTolerance ? 1 : 0;
+    }
+
+    //#GETTERS
+    //True while a motor has an event (kStall, kJam or kSlip) raised
+    public static boolean hasEvent(int motor, int event) {
+        return (events[motor] & event) != 0;
+    }
+
+    //Every event raised on a motor, as a mask of the event bits
+    public static int getEvents(int motor) {
+        return events[motor];
+    }
+
+    //How many events a motor has raised since the robot started
+    public static int getEventCount(int motor) {
+        return eventCount[motor];
+    }
+
+    //Filtered velocity (motor RPM) and current (amps)
+    public static double getVelocity(int motor) {
+        return velocity[motor];
+    }
+
+    public static double getCurrent(int motor) {
+        return current[motor];
+    }
+}
@@ -0,0 +1,159 @@
+package frc.robot.subsystems;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import frc.robot.SensorSnapshot;
+import frc.robot.io.ManipulatorIO;
+import frc.robot.util.DataLogger;
+import frc.robot.util.Telemetry;
+
+public class NoteTracker {
+
+    //NOTE STATES
+    //No note in the manipulator
+    public static final int kEmpty = 0;
+    //The intake is running and waiting for a note to reach the beam sensor
+    public static final int kIntaking = 1;
+    //A note is sitting at the beam sensor
+    public static final int kStaged = 2;
+    //The note is being fed to the amp wheels, it goes back to kEmpty once the shot is finished
+    public static final int kShooting = 3;
+
+    //The interrupt thread and the robot loop both move the state, so every change is a compare and set
+    private static final AtomicInteger state = new AtomicInteger(kEmpty);
+
+    //Written by the interrupt thread, read by the robot loop
+    private static volatile boolean beamBroken = false;
+    //FPGA time of the last note arrival and departure at the beam sensor (seconds)
+    private static volatile double arriveTime = Double.NaN;
+    private static volatile double clearTime = Double.NaN;
+
+    //Beam sensor as of the previous periodic(), read from the sampled inputs
+    private static boolean lastSample = false;
+
+    //The manipulator hardware, its intake is stopped on the interrupt thread when a note arrives while intaking
+    private static ManipulatorIO io;
+
+    //Dashboard and log signals
+    private static final int kBeamSensorSignal = Telemetry.addBoolean("Beam Sensor", 5);
+    private static final int kStateSignal = Telemetry.addNumber("Note State", 0.5, 5);
+    private static final int kBeamSensorLog = DataLogger.addBoolean("Manipulator/BeamSensor");
+    private static final int kStateLog = DataLogger.addDouble("Manipulator/NoteState");
+    private static final int kArriveTimeLog = DataLogger.addDouble("Manipulator/NoteArriveTime");
+    private static final int kClearTimeLog = DataLogger.addDouble("Manipulator/NoteClearTime");
+
+    //#INITIALIZE
+    //This method starts watching both edges of the beam sensor, the intake is stopped as soon as a note reaches it while intaking
+    //A note loaded before the robot turned on is found staged by the first periodic()
+    public static void initialize(ManipulatorIO manipulatorIO) {
+        io = manipulatorIO;
+        io.watchBeamSensor(NoteTracker::onEdge);
+    }
+
+    //#ONEDGE
+    //Runs on the interrupt thread for every beam sensor edge, rising means a note broke the beam
+    private static void onEdge(boolean rising, boolean falling, double risingTime, double fallingTime) {
+        //Both edges can be reported at once, handle them in the order they happened
+        if (rising && falling && fallingTime < risingTime) {
+            noteCleared(fallingTime);
+            noteArrived(risingTime);
+        } else {
+            if (rising) noteArrived(risingTime);
+            if (falling) noteCleared(fallingTime);
+        }
+    }
+
+    private static void noteArrived(double time) {
+        beamBroken = true;
+        arriveTime = time;
+        if (state.compareAndSet(kIntaking, kStaged)) {
+            //Skips the PowerGovernor scale, stopping needs none
+            io.stopIntake();
+        } else {
+            //A note pushed in by hand
+            state.compareAndSet(kEmpty, kStaged);
+        }
+    }
+
+    private static void noteCleared(double time) {
+        beamBroken = false;
+        clearTime = time;
+        //A staged note pulled back out, while shooting the note keeps going until finishShot()
+        state.compareAndSet(kStaged, kEmpty);
+    }
+
+    //#PERIODIC
+    //This method checks the beam sensor once per loop in case an edge was missed, then updates the dashboard and log
+    //In simulation and log replay there are no interrupts, so every edge is found here
+    public static void periodic() {
+        boolean beam = Manipulator.inputs.beamBroken;
+        //Only a change between samples counts: an interrupt can come in after the sample was taken, and the older sample must not undo it
+        //Handling an edge twice does nothing the second time, so this can't fight the interrupt thread
+        if (beam != lastSample) {
+            lastSample = beam;
+            if (beam) {
+                noteArrived(SensorSnapshot.getTimestamp());
+            } else {
+                noteCleared(SensorSnapshot.getTimestamp());
+            }
+        }
+
+        int current = state.get();
+        Telemetry.setBoolean(kBeamSensorSignal, beam);
+        Telemetry.setNumber(kStateSignal, current);
+        DataLogger.setBoolean(kBeamSensorLog, beam);
+        DataLogger.setDouble(kStateLog, current);
+        DataLogger.setDouble(kArriveTimeLog, arriveTime);
+        DataLogger.setDouble(kClearTimeLog, clearTime);
+    }
+
+    //#STATECHANGES
+    //These are called by the robot loop, each only moves the state on from the one it expects
+
+    //Start waiting for a note, returns true while the intake should run
+    public static boolean startIntake() {
+        state.compareAndSet(kEmpty, kIntaking);
+        return state.get() == kIntaking;
+    }
+
+    //Stop waiting for a note that never came, and give up any shot still marked as running
+    //so a shot the Shooter lost track of can never leave the intake locked out
+    public static void cancelIntake() {
+        state.compareAndSet(kIntaking, kEmpty);
+        abortShot();
+    }
+
+    //Start feeding the staged note to the amp wheels, returns true while a shot is in progress
+    public static boolean startShot() {
+        state.compareAndSet(kStaged, kShooting);
+        return state.get() == kShooting;
+    }
+
+    //The note has left the robot
+    public static void finishShot() {
+        state.compareAndSet(kShooting, kEmpty);
+    }
+
+    //A shot was stopped part way, the note is staged again if the beam sensor still sees it
+    public static void abortShot() {
+        state.compareAndSet(kShooting, beamBroken ? kStaged : kEmpty);
+    }
+
+    //#GETTERS
+    public static int getState() {
+        return state.get();
+    }
+
+    //True while the beam sensor sees a note, as of the last edge
+    public static boolean isBeamBroken() {
+        return beamBroken;
+    }
+
+    public static double getArriveTime() {
+        return arriveTime;
+    }
+
+    public static double getClearTime() {
+        return clearTime;
+    }
+}
@@ -0,0 +1,196 @@
+package frc.robot.subsystems;
+
+import frc.robot.Tuning;
+import frc.robot.Tuning.ManipulatorConfig;
+import frc.robot.io.ManipulatorIO;
+import frc.robot.util.DataLogger;
+import frc.robot.util.Telemetry;
+
+import edu.wpi.first.wpilibj2.command.Subsystem;
+import edu.wpi.first.wpilibj2.command.SubsystemBase;
+
+public class Pivot {
+
+    //The base motors, encoder and magnetic sensor are read and driven through the Manipulator's IO
+    //The magnetic sensor sits at the amp position, the bottom of travel, and is where the position is zeroed
+    private static final ManipulatorIO.Inputs inputs = Manipulator.inputs;
+    private static final ManipulatorIO.Outputs outputs = Manipulator.outputs;
+    //What commands that move the base require, so two of them never move it at once
+    public static final Subsystem requirement = new SubsystemBase() {};
+
+    //SETPOINTS
+    public static final int kAmp = 0;
+    public static final int kShoot = 1;
+    public static final int kIntake = 2;
+    public static final int kStow = 3;
+    //No setpoint: the base is driven directly with setOutput()
+    private static final int kManual = -1;
+    //Holding wherever the base was when hold() was called
+    private static final int kHold = -2;
+
+    //CONTROLLER CONSTANTS
+    //The Smart Motion gains and limits are set up by the IO
+    //How close a move has to finish (motor rotations)
+    public static final double kTolerance = 0.1;
+    //Percent output that holds the arm up when it is horizontal, scaled by the cosine of the arm angle
+    private static final double kGravityFF = 0.08;
+
+    private static boolean homed = false;
+    private static boolean homing = false;
+    private static boolean lastMagnet = false;
+    private static int setpoint = kManual;
+    private static double target = 0;
+    //Raw encoder position at the magnetic sensor, positions here are measured from it (the raw position until homed)
+    //The encoder itself is never reset, so zeroing costs no CAN traffic and replays the same from the log
+    private static double zeroOffset = 0;
+
+    //Dashboard and log signals
+    private static final int kMagneticSensorSignal = Telemetry.addBoolean("Magnetic Sensor", 5);
+    private static final int kHomedSignal = Telemetry.addBoolean("Pivot Homed", 5);
+    private static final int kPositionSignal = Telemetry.addNumber("Pivot Position", 0.05, 10);
+    private static final int kMagneticSensorLog = DataLogger.addBoolean("Manipulator/MagneticSensor");
+    private static final int kPositionLog = DataLogger.addDouble("Manipulator/BasePosition");
+    private static final int kOutputLog = DataLogger.addDouble("Manipulator/BaseOutput");
+    private static final int kTargetLog = DataLogger.addDouble("Manipulator/BaseTarget");
+
+    //#PERIODIC
+    //This method runs the homing routine or holds the current setpoint, called once every loop
+    public static void periodic() {
+        boolean magnet = inputs.magnetTriggered;
+
+        //Every time the base reaches the sensor the position is zeroed again, so it never drifts
+        if (magnet && !lastMagnet) zero();
+        lastMagnet = magnet;
+        double position = getPosition();
+
+        if (homing) {
+            if (magnet) {
+                homing = false;
+            } else {
+                setDirect(-Tuning.manipulator.homingSpeed);
+            }
+        }
+
+        if (!homing && setpoint != kManual) {
+            runSetpoint(position);
+        }
+
+        Telemetry.setBoolean(kMagneticSensorSignal, magnet);
+        Telemetry.setBoolean(kHomedSignal, homed);
+        Telemetry.setNumber(kPositionSignal, position);
+        DataLogger.setBoolean(kMagneticSensorLog, magnet);
+        DataLogger.setDouble(kPositionLog, position);
+        DataLogger.setDouble(kOutputLog, getOutput());
+        DataLogger.setDouble(kTargetLog, setpoint == kManual ? Double.NaN : target);
+    }
+
+    //#RUNSETPOINT
+    //This method hands the setpoint and gravity feedforward to the SPARK MAX, which runs the profile and position loop
+    //The IO only sends the reference when it changes, so a held setpoint costs no CAN traffic
+    private static void runSetpoint(double position) {
+        outputs.baseProfiled = true;
+        outputs.baseTarget = target + zeroOffset;
+        outputs.baseFeedforward = kGravityFF * Math.cos(armAngle(position));
+        //The PowerGovernor cut is applied as the closed loop output range
+        outputs.baseMaxOutput = PowerGovernor.getScale(PowerGovernor.kBase);
+    }
+
+    //#ARMANGLE
+    //Angle of the arm from horizontal (radians) at an encoder position
+    private static double armAngle(double position) {
+        ManipulatorConfig tuning = Tuning.manipulator;
+        return Math.toRadians(tuning.pivotHomeAngle) + position / tuning.pivotGearRatio * 2 * Math.PI;
+    }
+
+    private static void zero() {
+        zeroOffset = inputs.basePosition;
+        homed = true;
+    }
+
+    //#HOME
+    //This method drives the base down until the magnetic sensor zeroes it, then goes on to the current setpoint
+    public static void home() {
+        if (inputs.magnetTriggered) {
+            zero();
+            return;
+        }
+        homing = true;
+    }
+
+    //#GOTO
+    //This method moves the base to a named setpoint (kAmp, kShoot, kIntake or kStow), homing first if needed
+    public static void goTo(int newSetpoint) {
+        if (!homed && !homing) home();
+        setpoint = newSetpoint;
+        target = setpointPosition(newSetpoint);
+    }
+
+    //Encoder position of a setpoint (motor rotations from the magnetic sensor), read every time so a retune takes effect on the next move
+    private static double setpointPosition(int setpoint) {
+        switch (setpoint) {
+            case kShoot:
+                return Tuning.manipulator.shootPosition;
+            case kIntake:
+                return Tuning.manipulator.intakePosition;
+            case kStow:
+                return Tuning.manipulator.stowPosition;
+            default:
+                return 0;
+        }
+    }
+
+    //#HOLD
+    //This method keeps the base where it is now, used when the driver lets go of manual control
+    public static void hold() {
+        if (!homed) {
+            setOutput(0);
+            return;
+        }
+        setpoint = kHold;
+        target = getPosition();
+    }
+
+    //#SETOUTPUT
+    //This method drives the base directly at a percent output, leaving any setpoint or homing
+    public static void setOutput(double speed) {
+        homing = false;
+        setpoint = kManual;
+        setDirect(speed);
+    }
+
+    private static void setDirect(double speed) {
+        outputs.baseProfiled = false;
+        outputs.baseOutput = speed * PowerGovernor.getScale(PowerGovernor.kBase);
+    }
+
+    //#ATSETPOINT
+    //This method tells if the base has reached its setpoint
+    public static boolean atSetpoint() {
+        return homed && !homing && setpoint != kManual && Math.abs(target - getPosition()) < kTolerance;
+    }
+
+    //#GETTERS
+    public static boolean isHomed() {
+        return homed;
+    }
+
+    //True when the magnetic sensor is triggered (the amp position)
+    public static boolean atHome() {
+        return inputs.magnetTriggered;
+    }
+
+    //Position from the magnetic sensor (motor rotations)
+    public static double getPosition() {
+        return inputs.basePosition - zeroOffset;
+    }
+
+    //Percent output the base motors are running at, the SPARK MAX picks it while a setpoint is held
+    public static double getOutput() {
+        return outputs.baseProfiled ? inputs.baseAppliedOutput : outputs.baseOutput;
+    }
+
+    //Output current of both base motors added up (amps)
+    public static double getCurrent() {
+        return inputs.baseLeaderCurrent + inputs.baseFollowerCurrent;
+    }
+}
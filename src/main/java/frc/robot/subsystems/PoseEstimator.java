@@ -0,0 +1,229 @@
+package frc.robot.subsystems;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.util.Units;
+import frc.robot.SensorSnapshot;
+import frc.robot.Tuning;
+import frc.robot.util.DataLogger;
+import frc.robot.util.Telemetry;
+
+public class PoseEstimator {
+
+    //Number of odometry samples kept for rewinding (a little over 1 second of 10 ms control runs)
+    private static final int kHistorySize = 128;
+
+    //How much of the difference between a vision pose and odometry is taken per measurement
+    private static final double kVisionTranslationGain = 0.3;
+    private static final double kVisionRotationGain = 0.1;
+    //Vision poses further than this from odometry are thrown out (meters), once the pose is known
+    private static final double kMaxVisionJump = 1.5;
+
+    //Pose history ring buffer, one array per value so nothing is allocated per loop
+    private static final double[] historyTime = new double[kHistorySize];
+    private static final double[] historyX = new double[kHistorySize];
+    private static final double[] historyY = new double[kHistorySize];
+    private static final double[] historyHeading = new double[kHistorySize];
+    private static final double[] historyLeft = new double[kHistorySize];
+    private static final double[] historyRight = new double[kHistorySize];
+    //Index of the newest sample and how many samples are valid
+    private static int newest = -1;
+    private static int historyCount = 0;
+
+    //Current pose estimate (meters and radians, WPILib blue-origin field coordinates)
+    private static double poseX = 0;
+    private static double poseY = 0;
+    private static double poseHeading = 0;
+    //False until the pose is known on the field: odometry alone only knows how far the robot moved,
+    //so the first vision pose is taken whole (no jump check) and sets x, y and heading
+    private static boolean known = false;
+
+    //Drive distances at the last update (meters)
+    private static double lastLeft = 0;
+    private static double lastRight = 0;
+
+
+    //Dashboard signals for the pose (10 Hz)
+    private static final int kPoseXSignal = Telemetry.addNumber("Pose X", 0.01, 10);
+    private static final int kPoseYSignal = Telemetry.addNumber("Pose Y", 0.01, 10);
+    private static final int kPoseHeadingSignal = Telemetry.addNumber("Pose Heading", 0.5, 10);
+
+    //Log signals for the pose
+    private static final int kPoseXLog = DataLogger.addDouble("Pose/X");
+    private static final int kPoseYLog = DataLogger.addDouble("Pose/Y");
+    private static final int kPoseHeadingLog = DataLogger.addDouble("Pose/Heading");
+
+    //#RESETPOSE
+    //This method moves the estimate to a known pose and forgets the history
+    public static void resetPose(double x, double y, double heading) {
+        setPose(x, y, heading);
+        known = true;
+    }
+
+    //#CLEARPOSE
+    //This method starts odometry from the origin with the pose marked unknown, the first vision pose then places it on the field
+    public static void clearPose() {
+        setPose(0, 0, 0);
+        known = false;
+    }
+
+    private static void setPose(double x, double y, double heading) {
+        poseX = x;
+        poseY = y;
+        poseHeading = heading;
+        lastLeft = Units.inchesToMeters(DriveTrain.leftDistance);
+        lastRight = Units.inchesToMeters(DriveTrain.rightDistance);
+        newest = -1;
+        historyCount = 0;
+    }
+
+    //#UPDATE
+    //This method runs differential drive odometry from the encoder distances and records the result in the history
+    public static void update() {
+        double left = Units.inchesToMeters(DriveTrain.leftDistance);
+        double right = Units.inchesToMeters(DriveTrain.rightDistance);
+
+        integrate(left - lastLeft, right - lastRight);
+        lastLeft = left;
+        lastRight = right;
+
+        newest = (newest + 1) % kHistorySize;
+        if (historyCount < kHistorySize) historyCount++;
+        //Stamped with the time the encoders were read, not when this ran
+        historyTime[newest] = SensorSnapshot.getTimestamp();
+        historyX[newest] = poseX;
+        historyY[newest] = poseY;
+        historyHeading[newest] = poseHeading;
+        historyLeft[newest] = left;
+        historyRight[newest] = right;
+
+        Telemetry.setNumber(kPoseXSignal, poseX);
+        Telemetry.setNumber(kPoseYSignal, poseY);
+        Telemetry.setNumber(kPoseHeadingSignal, Math.toDegrees(poseHeading));
+
+        DataLogger.setDouble(kPoseXLog, poseX);
+        DataLogger.setDouble(kPoseYLog, poseY);
+        DataLogger.setDouble(kPoseHeadingLog, poseHeading);
+    }
+
+    //#ADDVISIONMEASUREMENT
+    //This method rewinds to the time the camera captured the frame, corrects the pose there and replays odometry up to now
+    public static void addVisionMeasurement(double x, double y, double heading, double captureTime) {
+        if (historyCount == 0) return;
+
+        //Find the newest sample taken at or before the capture time
+        int index = newest;
+        int checked = 0;
+        while (historyTime[index] > captureTime) {
+            checked++;
+            if (checked >= historyCount) return; //Older than the whole history
+            index = (index - 1 + kHistorySize) % kHistorySize;
+        }
+
+        //Odometry pose and drive distances at the capture time
+        double capturedX = historyX[index];
+        double capturedY = historyY[index];
+        double capturedHeading = historyHeading[index];
+        double capturedLeft = historyLeft[index];
+        double capturedRight = historyRight[index];
+        int next = (index + 1) % kHistorySize;
+        if (index != newest && historyTime[next] > historyTime[index]) {
+            double t = (captureTime - historyTime[index]) / (historyTime[next] - historyTime[index]);
+            capturedX += (historyX[next] - capturedX) * t;
+            capturedY += (historyY[next] - capturedY) * t;
+            capturedHeading += MathUtil.angleModulus(historyHeading[next] - capturedHeading) * t;
+            capturedLeft += (historyLeft[next] - capturedLeft) * t;
+            capturedRight += (historyRight[next] - capturedRight) * t;
+        }
+
+        double errorX = x - capturedX;
+        double errorY = y - capturedY;
+        if (known && Math.hypot(errorX, errorY) > kMaxVisionJump) return;
+
+        //Corrected pose at the capture time, the first vision pose is taken whole
+        double translationGain = known ? kVisionTranslationGain : 1;
+        double rotationGain = known ? kVisionRotationGain : 1;
+        poseX = capturedX + errorX * translationGain;
+        poseY = capturedY + errorY * translationGain;
+        poseHeading = MathUtil.angleModulus(capturedHeading + MathUtil.angleModulus(heading - capturedHeading) * rotationGain);
+        known = true;
+
+        if (index == newest) {
+            historyX[newest] = poseX;
+            historyY[newest] = poseY;
+            historyHeading[newest] = poseHeading;
+            return;
+        }
+
+        //Replay odometry from the capture time to now, fixing up the history on the way
+        double left = capturedLeft;
+        double right = capturedRight;
+        int replay = index;
+        while (replay != newest) {
+            replay = (replay + 1) % kHistorySize;
+            integrate(historyLeft[replay] - left, historyRight[replay] - right);
+            left = historyLeft[replay];
+            right = historyRight[replay];
+            historyX[replay] = poseX;
+            historyY[replay] = poseY;
+            historyHeading[replay] = poseHeading;
+        }
+    }
+
+    //#INTEGRATE
+    //This method moves the pose by one step of left and right wheel travel
+    private static void integrate(double deltaLeft, double deltaRight) {
+        double deltaDistance = (deltaLeft + deltaRight) / 2;
+        double deltaHeading = (deltaRight - deltaLeft) / Units.inchesToMeters(Tuning.drive.trackWidth);
+        double midHeading = poseHeading + deltaHeading / 2;
+
+        poseX += deltaDistance * Math.cos(midHeading);
+        poseY += deltaDistance * Math.sin(midHeading);
+        poseHeading = MathUtil.angleModulus(poseHeading + deltaHeading);
+    }
+
+    //#GETPOSE
+    //Getters for the current pose estimate
+    public static double getX() {
+        return poseX;
+    }
+
+    public static double getY() {
+        return poseY;
+    }
+
+    public static double getHeading() {
+        return poseHeading;
+    }
+
+    //True once the pose is on the field (a vision pose or resetPose), before that only relative moves are right
+    public static boolean isKnown() {
+        return known;
+    }
+
+    //#GETDISTANCE
+    //Distance driven (meters, the average of both sides) as of the last update, and at an earlier time
+    //Only differences matter, used to carry a latency-delayed camera range forward to now
+    public static double getDistance() {
+        return (lastLeft + lastRight) / 2;
+    }
+
+    public static double getDistanceAt(double time) {
+        if (historyCount == 0) return getDistance();
+        int index = newest;
+        for (int checked = 1; checked < historyCount && historyTime[index] > time; checked++) {
+            index = (index - 1 + kHistorySize) % kHistorySize;
+        }
+        return (historyLeft[index] + historyRight[index]) / 2;
+    }
+
+    //#GETHEADINGAT
+    //This method returns the estimated heading at an earlier time, used to line up latency-delayed camera data
+    public static double getHeadingAt(double time) {
+        if (historyCount == 0) return poseHeading;
+        int index = newest;
+        for (int checked = 1; checked < historyCount && historyTime[index] > time; checked++) {
+            index = (index - 1 + kHistorySize) % kHistorySize;
+        }
+        return historyHeading[index];
+    }
+}
@@ -0,0 +1,111 @@
+package frc.robot.subsystems;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.util.DataLogger;
+import frc.robot.util.Telemetry;
+
+public class PowerGovernor {
+
+    //Mechanism groups, in priority order: a group only gets the current the groups before it left over
+    public static final int kDrive = 0;
+    public static final int kBase = 1;
+    public static final int kAmp = 2;
+    public static final int kIntake = 3;
+    private static final int kGroupCount = 4;
+    private static final String[] kGroupNames = {"Drive", "Base", "Amp", "Intake"};
+
+    //How often the budget is worked out (seconds), matches the 50 ms current (Status 1) frames
+    //Robot runs periodic() at this rate in its own rate group
+    public static final double kPeriod = 0.05;
+    //Total motor current allowed with a healthy battery (amps)
+    private static final double kCurrentBudget = 180;
+    //Below kSagVoltage the budget shrinks, reaching zero at the roboRIO brownout voltage (volts)
+    private static final double kSagVoltage = 8.5;
+    private static final double kBrownoutVoltage = 6.8;
+    //Lowest scale a group is cut to, so the driver always keeps some control
+    private static final double kMinScale = 0.2;
+    //How fast a scale can come back up once the load drops (scale per second), cuts happen right away
+    private static final double kRecoveryRate = 1.0;
+
+    private static final double[] current = new double[kGroupCount];
+    private static final double[] scale = {1, 1, 1, 1};
+    private static double budget = kCurrentBudget;
+    private static double totalCurrent = 0;
+    private static double voltage = 12;
+    private static double lastUpdate = 0;
+
+    //Dashboard and log signals for the budget decisions
+    private static final int kBudgetSignal = Telemetry.addNumber("Power/Budget", 1, 5);
+    private static final int kTotalCurrentSignal = Telemetry.addNumber("Power/Total Current", 1, 5);
+    private static final int kVoltageSignal = Telemetry.addNumber("Power/Battery Voltage", 0.05, 5);
+    private static final int[] kScaleSignals = new int[kGroupCount];
+    private static final int kBudgetLog = DataLogger.addDouble("Power/Budget");
+    private static final int kTotalCurrentLog = DataLogger.addDouble("Power/TotalCurrent");
+    private static final int kVoltageLog = DataLogger.addDouble("Power/BatteryVoltage");
+    private static final int[] kCurrentLogs = new int[kGroupCount];
+    private static final int[] kScaleLogs = new int[kGroupCount];
+
+    static {
+        for (int i = 0; i < kGroupCount; i++) {
+            kScaleSignals[i] = Telemetry.addNumber("Power/" + kGroupNames[i] + " Scale", 0.01, 5);
+            kCurrentLogs[i] = DataLogger.addDouble("Power/" + kGroupNames[i] + "Current");
+            kScaleLogs[i] = DataLogger.addDouble("Power/" + kGroupNames[i] + "Scale");
+        }
+    }
+
+    //#PERIODIC
+    //This method reads the currents and battery voltage every kPeriod and hands out the budget by priority
+    public static void periodic() {
+        double now = Timer.getFPGATimestamp();
+        double dt = now - lastUpdate;
+        //Scheduling jitter can bring a run in a little early, only a second call within the same period is skipped
+        if (dt < kPeriod / 2) return;
+        lastUpdate = now;
+        dt = Math.min(dt, 4 * kPeriod);
+
+        //From the inputs sampled at the start of the control loop, so log replay sees the same values
+        current[kDrive] = DriveTrain.getDriveCurrent();
+        current[kBase] = Manipulator.getBaseCurrent();
+        current[kAmp] = Manipulator.getAmpCurrent();
+        current[kIntake] = Manipulator.getIntakeCurrent();
+        voltage = DriveTrain.getBatteryVoltage();
+
+        budget = kCurrentBudget * MathUtil.clamp((voltage - kBrownoutVoltage) / (kSagVoltage - kBrownoutVoltage), 0, 1);
+
+        totalCurrent = 0;
+        double remaining = budget;
+        for (int i = 0; i < kGroupCount; i++) {
+            totalCurrent += current[i];
+            //Current the group would draw without its cut, assuming current follows the output
+            double demand = current[i] / scale[i];
+            double allowed = Math.min(demand, remaining);
+            remaining -= allowed;
+
+            double target = demand > 1 ? MathUtil.clamp(allowed / demand, kMinScale, 1) : 1;
+            scale[i] = target < scale[i] ? target : Math.min(target, scale[i] + kRecoveryRate * dt);
+        }
+
+        //The drive cut goes through the differential drive so every arcadeDrive call gets it,
+        //profiled drives get it as their output range in DriveTrain.applyOutputs
+        DriveTrain.HamsterDrive.setMaxOutput(scale[kDrive]);
+
+        Telemetry.setNumber(kBudgetSignal, budget);
+        Telemetry.setNumber(kTotalCurrentSignal, totalCurrent);
+        Telemetry.setNumber(kVoltageSignal, voltage);
+        DataLogger.setDouble(kBudgetLog, budget);
+        DataLogger.setDouble(kTotalCurrentLog, totalCurrent);
+        DataLogger.setDouble(kVoltageLog, voltage);
+        for (int i = 0; i < kGroupCount; i++) {
+            Telemetry.setNumber(kScaleSignals[i], scale[i]);
+            DataLogger.setDouble(kCurrentLogs[i], current[i]);
+            DataLogger.setDouble(kScaleLogs[i], scale[i]);
+        }
+    }
+
+    //#GETSCALE
+    //This method returns how much of its commanded output a group is allowed right now (kMinScale to 1)
+    public static double getScale(int group) {
+        return scale[group];
+    }
+}
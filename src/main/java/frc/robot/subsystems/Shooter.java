@@ -0,0 +1,191 @@
+package frc.robot.subsystems;
+
+import frc.robot.SensorSnapshot;
+import frc.robot.Tuning;
+import frc.robot.io.ManipulatorIO;
+import frc.robot.util.DataLogger;
+import frc.robot.util.Telemetry;
+
+public class Shooter {
+
+    //The amp wheels are read and driven through the Manipulator's IO, which also sets up their fast velocity frames
+    private static final ManipulatorIO.Inputs inputs = Manipulator.inputs;
+    private static final ManipulatorIO.Outputs outputs = Manipulator.outputs;
+
+    //SHOTS
+    public static final int kSpeaker = 0;
+    public static final int kAmp = 1;
+    //The outputs are Tuning.manipulator.speakerOutput and ampOutput
+    //Speed the amp wheels settle at per unit of output with no note on a 12 volt battery (RPM), a NEO's free speed less friction
+    //The wheels run open loop, so the speed they actually reach drops with the battery and the PowerGovernor scale
+    private static final double kRpmPerOutput = 5500;
+    private static final double kNominalVoltage = 12;
+    //How close to the expected speed counts as ready (fraction of it, and never tighter than kMinToleranceRpm)
+    private static final double kToleranceFraction = 0.05;
+    private static final double kMinToleranceRpm = 100;
+    //The wheels are also ready once they stop speeding up: no gain of more than kPlateauRpm for kPlateauTime (seconds),
+    //as long as they are past kMinReadyFraction of the expected speed, so a sagging battery never holds a shot back
+    private static final double kPlateauRpm = 50;
+    private static final double kPlateauTime = 0.1;
+    private static final double kMinReadyFraction = 0.7;
+
+    //SEQUENCE STATES
+    public static final int kIdle = 0;
+    public static final int kSpinUp = 1;
+    public static final int kFeed = 2;
+
+    //How far below the target the wheels have to slow for the note to count as in the wheels (fraction of target)
+    private static final double kDipFraction = 0.1;
+    //How much the wheels have to speed back up from the bottom of the dip for the note to count as gone (RPM)
+    private static final double kRecoveryRpm = 100;
+    //Longest the wheels get to reach speed, and the note to go through, before the shot is given up (seconds)
+    private static final double kSpinUpTimeout = 1.5;
+    private static final double kFeedTimeout = 1.0;
+
+    private static int state = kIdle;
+    private static int shot = kSpeaker;
+    private static double stateStart = 0;
+    private static boolean dipSeen = false;
+    private static double minVelocity = 0;
+    //Speed the wheels were at when the note was fed, the dip is measured from it
+    private static double readyRpm = 0;
+    private static double velocity = 0;
+    //Fastest speed reached so far in the spin-up and when it was reached, for the plateau check
+    private static double plateauVelocity = 0;
+    private static double plateauStart = 0;
+
+    //Dashboard and log signals
+    private static final int kStateSignal = Telemetry.addNumber("Shooter State", 0.5, 10);
+    private static final int kVelocitySignal = Telemetry.addNumber("Shooter RPM", 25, 10);
+    private static final int kStateLog = DataLogger.addDouble("Shooter/State");
+    private static final int kVelocityLog = DataLogger.addDouble("Shooter/Velocity");
+    private static final int kOutputLog = DataLogger.addDouble("Manipulator/AmpOutput");
+    private static final int kShotTimeLog = DataLogger.addDouble("Shooter/ShotTime");
+
+    //#SHOOT
+    //This method starts a shot (kSpeaker or kAmp) if a note is staged and no shot is running, it can be called every loop
+    public static void shoot(int newShot) {
+        if (state != kIdle || NoteTracker.getState() != NoteTracker.kStaged) return;
+        shot = newShot;
+        setState(kSpinUp);
+        plateauVelocity = inputs.ampVelocity;
+        plateauStart = stateStart;
+        setAmp(output());
+    }
+
+    //#PERIODIC
+    //This method moves the shot along from the amp wheel velocity, called once every loop
+    public static void periodic() {
+        velocity = inputs.ampVelocity;
+        double elapsed = SensorSnapshot.getTimestamp() - stateStart;
+
+        //Something caught in the amp wheels: give the shot up, a staged note can be shot again once they are clear
+        if (state != kIdle && MotionHealth.hasEvent(MotionHealth.kAmp, MotionHealth.kJam)) stop();
+
+        switch (state) {
+            case kSpinUp:
+                setAmp(output());
+                if (isAtSpeed()) {
+                    //At speed: push the note into the wheels, unless it is no longer staged (it left the beam sensor during spin up)
+                    if (NoteTracker.startShot()) {
+                        Manipulator.setIntake(-Tuning.manipulator.feedSpeed);
+                        dipSeen = false;
+                        minVelocity = velocity;
+                        readyRpm = velocity;
+                        setState(kFeed);
+                    } else {
+                        stop();
+                    }
+                } else if (elapsed > kSpinUpTimeout) {
+                    stop();
+                }
+                break;
+
+            case kFeed:
+                setAmp(output());
+                minVelocity = Math.min(minVelocity, velocity);
+                //The wheels slow while they grip the note and speed back up once it has left
+                if (velocity < readyRpm * (1 - kDipFraction)) dipSeen = true;
+                if (dipSeen && velocity > minVelocity + kRecoveryRpm) {
+                    DataLogger.setDouble(kShotTimeLog, elapsed);
+                    NoteTracker.finishShot();
+                    stop();
+                } else if (elapsed > kFeedTimeout) {
+                    //No dip: the note never reached the wheels or slipped through without loading them
+                    stop();
+                }
+                break;
+
+            default:
+                break;
+        }
+
+        Telemetry.setNumber(kStateSignal, state);
+        Telemetry.setNumber(kVelocitySignal, velocity);
+        DataLogger.setDouble(kStateLog, state);
+        DataLogger.setDouble(kVelocityLog, velocity);
+        DataLogger.setDouble(kOutputLog, outputs.ampOutput);
+    }
+
+    //#ISATSPEED
+    //True once the amp wheels are at the speed the output should reach on this battery and PowerGovernor scale,
+    //or have stopped speeding up close enough to it
+    private static boolean isAtSpeed() {
+        double now = SensorSnapshot.getTimestamp();
+        double expectedRpm = outputs.ampOutput * kRpmPerOutput * DriveTrain.getBatteryVoltage() / kNominalVoltage;
+        if (velocity > plateauVelocity + kPlateauRpm) {
+            plateauVelocity = velocity;
+            plateauStart = now;
+        }
+        if (Math.abs(velocity - expectedRpm) < Math.max(expectedRpm * kToleranceFraction, kMinToleranceRpm)) return true;
+        return now - plateauStart >= kPlateauTime && velocity >= expectedRpm * kMinReadyFraction;
+    }
+
+    private static double output() {
+        return shot == kSpeaker ? Tuning.manipulator.speakerOutput : Tuning.manipulator.ampOutput;
+    }
+
+    private static void setState(int newState) {
+        state = newState;
+        stateStart = SensorSnapshot.getTimestamp();
+    }
+
+    private static void setAmp(double speed) {
+        outputs.ampOutput = speed * PowerGovernor.getScale(PowerGovernor.kAmp);
+    }
+
+    //#STOP
+    //This method ends any shot and stops the amp wheels and the feed
+    public static void stop() {
+        if (state == kFeed) {
+            Manipulator.setIntake(0);
+            //A note that did not go all the way through can be shot again
+            NoteTracker.abortShot();
+        }
+        state = kIdle;
+        setAmp(0);
+    }
+
+    //#GETTERS
+    public static int getState() {
+        return state;
+    }
+
+    public static boolean isIdle() {
+        return state == kIdle;
+    }
+
+    //Amp wheel velocity from the last periodic() (RPM)
+    public static double getVelocity() {
+        return velocity;
+    }
+
+    //Percent output last picked for the amp motor
+    public static double getOutput() {
+        return outputs.ampOutput;
+    }
+
+    public static double getCurrent() {
+        return inputs.ampCurrent;
+    }
+}
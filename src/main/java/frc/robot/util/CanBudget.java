@@ -0,0 +1,89 @@
+package frc.robot.util;
+
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.CANSparkMaxLowLevel.PeriodicFrame;
+
+import edu.wpi.first.wpilibj.DriverStation;
+
+public class CanBudget {
+
+    //Pass this as a period when a motor's signal is never read
+    public static final int kUnused = 0;
+    //Period used for frames nobody reads (the slowest the SPARK MAX allows)
+    private static final int kUnusedPeriodMs = 65535;
+
+    //Factory default periods of status frames 0 to 4 (milliseconds)
+    private static final int[] kDefaultPeriodsMs = {10, 20, 20, 50, 20};
+
+    //Bits on the wire for one 8 byte extended CAN frame, including stuffing
+    private static final double kBitsPerFrame = 135;
+    //CAN bus bit rate
+    private static final double kBusBitsPerSecond = 1_000_000;
+    //Share of the bus the status frames may use, the rest is left for control frames and the other devices
+    private static final double kMaxUtilization = 0.5;
+
+    //Running totals of frames per second for every motor configured so far
+    private static double configuredFramesPerSecond = 0;
+    private static double defaultFramesPerSecond = 0;
+    private static int motorCount = 0;
+
+    private static final int kUtilizationSignal = Telemetry.addNumber("CAN Estimated Utilization", 0.1, 1);
+
+    //#CONFIGURE
+    //This method sets the status frame periods of a motor from the signals it needs
+    //outputPeriodMs:   applied output and faults (Status 0), must stay fast on a leader so its followers keep up
+    //velocityPeriodMs: velocity, current, temperature and voltage (Status 1)
+    //positionPeriodMs: encoder position (Status 2)
+    //Analog sensor and alternate encoder frames (Status 3 and 4) are never used on this robot
+    public static void configure(CANSparkMax motor, int outputPeriodMs, int velocityPeriodMs, int positionPeriodMs) {
+        setPeriods(motor, outputPeriodMs, velocityPeriodMs, positionPeriodMs);
+        addToBudget(outputPeriodMs, velocityPeriodMs, positionPeriodMs);
+    }
+
+    //#ADDTOBUDGET
+    //This method adds a motor's frames to the running totals, synchronized because the motor configuration threads call it at the same time
+    private static synchronized void addToBudget(int outputPeriodMs, int velocityPeriodMs, int positionPeriodMs) {
+        int status0 = periodOrUnused(outputPeriodMs);
+        int status1 = periodOrUnused(velocityPeriodMs);
+        int status2 = periodOrUnused(positionPeriodMs);
+        double framesPerSecond = framesPerSecond(status0) + framesPerSecond(status1) + framesPerSecond(status2)
+            + 2 * framesPerSecond(kUnusedPeriodMs);
+        configuredFramesPerSecond += framesPerSecond;
+        for (int period : kDefaultPeriodsMs) defaultFramesPerSecond += framesPerSecond(period);
+        motorCount++;
+    }
+
+    //#SETPERIODS
+    //This method only writes the status frame periods, used again when a controller resets and loses them
+    public static void setPeriods(CANSparkMax motor, int outputPeriodMs, int velocityPeriodMs, int positionPeriodMs) {
+        motor.setPeriodicFramePeriod(PeriodicFrame.kStatus0, periodOrUnused(outputPeriodMs));
+        motor.setPeriodicFramePeriod(PeriodicFrame.kStatus1, periodOrUnused(velocityPeriodMs));
+        motor.setPeriodicFramePeriod(PeriodicFrame.kStatus2, periodOrUnused(positionPeriodMs));
+        motor.setPeriodicFramePeriod(PeriodicFrame.kStatus3, kUnusedPeriodMs);
+        motor.setPeriodicFramePeriod(PeriodicFrame.kStatus4, kUnusedPeriodMs);
+    }
+
+    //#REPORT
+    //This method puts the estimated bus utilization of every configured motor on the dashboard,
+    //and warns only when it is over the budget (compared to the factory defaults)
+    public static void report() {
+        double configured = utilization(configuredFramesPerSecond);
+        double defaults = utilization(defaultFramesPerSecond);
+
+        if (configured > kMaxUtilization) DriverStation.reportWarning("CAN budget: " + motorCount + " SPARK MAX status frames use an estimated "
+            + Math.round(configured * 100) + "% of the bus (factory defaults would use " + Math.round(defaults * 100) + "%)", false);
+        Telemetry.setNumber(kUtilizationSignal, configured * 100);
+    }
+
+    private static int periodOrUnused(int periodMs) {
+        return periodMs == kUnused ? kUnusedPeriodMs : periodMs;
+    }
+
+    private static double framesPerSecond(int periodMs) {
+        return 1000.0 / periodMs;
+    }
+
+    private static double utilization(double framesPerSecond) {
+        return framesPerSecond * kBitsPerFrame / kBusBitsPerSecond;
+    }
+}
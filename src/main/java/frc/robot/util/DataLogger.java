@@ -0,0 +1,151 @@
+package frc.robot.util;
+
+import edu.wpi.first.util.datalog.BooleanLogEntry;
+import edu.wpi.first.util.datalog.DataLog;
+import edu.wpi.first.util.datalog.DoubleLogEntry;
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.RobotController;
+
+public class DataLogger {
+
+    //Maximum number of signals that can be registered
+    private static final int kMaxSignals = 96;
+    //Number of loops that can wait for the writer thread (a little over 2.5 seconds of 10 ms control runs)
+    private static final int kCapacity = 256;
+    //How long the writer thread sleeps between drains (milliseconds)
+    private static final long kWriterPeriodMs = 20;
+
+    //Signal names and types, filled in on the main thread before the handle is ever used
+    private static final String[] names = new String[kMaxSignals];
+    private static final boolean[] isBoolean = new boolean[kMaxSignals];
+    private static volatile int signalCount = 0;
+
+    //Values of the loop that is being filled in (booleans are stored as 1 or 0)
+    private static final double[] current = new double[kMaxSignals];
+
+    //Ring buffer of finished loops waiting to be written, single producer (main loop) and single consumer (writer thread)
+    private static final double[][] frames = new double[kCapacity][kMaxSignals];
+    private static final long[] frameTimes = new long[kCapacity];
+    private static volatile long head = 0;
+    private static volatile long tail = 0;
+    private static long droppedFrames = 0;
+
+    //Log entries and the last value written to each, only touched by the writer thread
+    private static final DoubleLogEntry[] doubleEntries = new DoubleLogEntry[kMaxSignals];
+    private static final BooleanLogEntry[] booleanEntries = new BooleanLogEntry[kMaxSignals];
+    private static final double[] lastWritten = new double[kMaxSignals];
+    private static final boolean[] hasWritten = new boolean[kMaxSignals];
+
+    private static DataLog log;
+    private static Thread writer;
+
+    //#ADDDOUBLE
+    //This method registers a number signal and returns the handle used to record it
+    public static int addDouble(String name) {
+        return addSignal(name, false);
+    }
+
+    //#ADDBOOLEAN
+    //This method registers a boolean signal and returns the handle used to record it
+    public static int addBoolean(String name) {
+        return addSignal(name, true);
+    }
+
+    private static synchronized int addSignal(String name, boolean bool) {
+        int handle = signalCount;
+        if (handle >= kMaxSignals) {
+            throw new IllegalStateException("Too many log signals, increase kMaxSignals");
+        }
+        names[handle] = name;
+        isBoolean[handle] = bool;
+        signalCount = handle + 1;
+        return handle;
+    }
+
+    //#SETDOUBLE
+    //This method stores the value of a number signal for this loop
+    public static void setDouble(int handle, double value) {
+        current[handle] = value;
+    }
+
+    //#SETBOOLEAN
+    //This method stores the value of a boolean signal for this loop
+    public static void setBoolean(int handle, boolean value) {
+        current[handle] = value ? 1 : 0;
+    }
+
+    //#START
+    //This method opens the log file (USB stick if there is one, else the roboRIO) and starts the writer thread
+    public static void start() {
+        if (writer != null) return;
+
+        DataLogManager.start();
+        log = DataLogManager.getLog();
+        DriverStation.startDataLog(log);
+
+        writer = new Thread(DataLogger::writeLoop, "DataLogger");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    //#COMMIT
+    //This method hands this loop's values to the writer thread, it is called once at the end of every loop
+    public static void commit() {
+        if (writer == null) return;
+        if (tail - head >= kCapacity) {
+            droppedFrames++;
+            return;
+        }
+        int slot = (int) (tail % kCapacity);
+        System.arraycopy(current, 0, frames[slot], 0, signalCount);
+        frameTimes[slot] = RobotController.getFPGATime();
+        tail = tail + 1;
+    }
+
+    //#GETLOG
+    //The log file opened by start(), null before that
+    public static DataLog getLog() {
+        return log;
+    }
+
+    //#GETDROPPEDFRAMES
+    //Number of loops that were lost because the writer thread fell behind
+    public static long getDroppedFrames() {
+        return droppedFrames;
+    }
+
+    //#WRITELOOP
+    //Runs on the writer thread: drains finished loops into the log, only writing values that changed
+    private static void writeLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            while (head != tail) {
+                int slot = (int) (head % kCapacity);
+                writeFrame(frames[slot], frameTimes[slot]);
+                head = head + 1;
+            }
+            try {
+                Thread.sleep(kWriterPeriodMs);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private static void writeFrame(double[] frame, long timestamp) {
+        int count = signalCount;
+        for (int i = 0; i < count; i++) {
+            if (hasWritten[i] && frame[i] == lastWritten[i]) continue;
+
+            if (isBoolean[i]) {
+                if (booleanEntries[i] == null) booleanEntries[i] = new BooleanLogEntry(log, names[i]);
+                booleanEntries[i].append(frame[i] != 0, timestamp);
+            } else {
+                if (doubleEntries[i] == null) doubleEntries[i] = new DoubleLogEntry(log, names[i]);
+                doubleEntries[i].append(frame[i], timestamp);
+            }
+            lastWritten[i] = frame[i];
+            hasWritten[i] = true;
+        }
+    }
+}
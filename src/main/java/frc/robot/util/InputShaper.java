@@ -0,0 +1,93 @@
+package frc.robot.util;
+
+import edu.wpi.first.math.MathUtil;
+
+public class InputShaper {
+
+    //Most stages one shaper can hold
+    private static final int kMaxStages = 8;
+
+    //Stage types
+    private static final int kDeadband = 0;
+    private static final int kExpo = 1;
+    private static final int kScale = 2;
+    private static final int kSlewRate = 3;
+
+    //The chain is kept as flat arrays and run with a switch, so applying it never allocates or makes a virtual call
+    private final int[] types = new int[kMaxStages];
+    private final double[] params = new double[kMaxStages];
+    //Last output of each slew rate stage
+    private final double[] state = new double[kMaxStages];
+    private int stageCount = 0;
+
+    //#DEADBAND
+    //Zero inside +-width, rescaled outside so the output still starts at 0 and reaches 1 (no jump at the edge)
+    public InputShaper deadband(double width) {
+        return addStage(kDeadband, width);
+    }
+
+    //#EXPO
+    //Blend of linear and cubic: 0 is linear, 1 is a pure cube, in between gives fine control near center and full range at the ends
+    public InputShaper expo(double amount) {
+        return addStage(kExpo, MathUtil.clamp(amount, 0, 1));
+    }
+
+    //#CUBIC
+    public InputShaper cubic() {
+        return expo(1);
+    }
+
+    //#SCALE
+    //Multiplies the output, used to cap the power the driver can ask for
+    public InputShaper scale(double max) {
+        return addStage(kScale, max);
+    }
+
+    //#SLEWRATE
+    //Limits how fast the output can change, in full range per second
+    public InputShaper slewRate(double unitsPerSecond) {
+        return addStage(kSlewRate, unitsPerSecond);
+    }
+
+    private InputShaper addStage(int type, double param) {
+        if (stageCount >= kMaxStages) {
+            throw new IllegalStateException("Too many input stages, increase kMaxStages");
+        }
+        types[stageCount] = type;
+        params[stageCount] = param;
+        stageCount++;
+        return this;
+    }
+
+    //#APPLY
+    //This method runs a value through every stage in the order they were added, dt is the time since the last call (seconds)
+    public double apply(double value, double dt) {
+        for (int i = 0; i < stageCount; i++) {
+            switch (types[i]) {
+                case kDeadband:
+                    value = MathUtil.applyDeadband(value, params[i]);
+                    break;
+                case kExpo:
+                    value = (1 - params[i]) * value + params[i] * value * value * value;
+                    break;
+                case kScale:
+                    value *= params[i];
+                    break;
+                case kSlewRate:
+                    double maxChange = params[i] * dt;
+                    value = state[i] + MathUtil.clamp(value - state[i], -maxChange, maxChange);
+                    state[i] = value;
+                    break;
+                default:
+                    break;
+            }
+        }
+        return value;
+    }
+
+    //#RESET
+    //This method puts every slew rate stage back to a value, for example 0 when the robot is enabled
+    public void reset(double value) {
+        for (int i = 0; i < stageCount; i++) state[i] = value;
+    }
+}
@@ -0,0 +1,216 @@
+package frc.robot.util;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import edu.wpi.first.networktables.DoubleArrayPublisher;
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj.DriverStation;
+
+public class LoopProfiler {
+
+    //Maximum number of stages that can be registered
+    private static final int kMaxStages = 32;
+    //Number of samples kept for each stage (a little over 2.5 seconds of 10 ms control runs)
+    private static final int kSamples = 256;
+
+    //How often the p50/p99/max summary is pushed to the dashboard
+    private static final long kSummaryPeriodNs = 1_000_000_000L;
+    //How often an overrun warning can be printed to the driver station
+    private static final long kOverrunReportPeriodNs = 1_000_000_000L;
+
+    //Summaries go in the SmartDashboard table through cached publishers, so publishing them never looks up a key
+    private static final NetworkTable table = NetworkTableInstance.getDefault().getTable("SmartDashboard");
+    private static final DoublePublisher overrunPublisher = table.getDoubleTopic("Profiler/Overruns").publish();
+
+    //Stage names and their ring buffers of call durations in nanoseconds
+    private static final String[] stageNames = new String[kMaxStages];
+    private static final DoubleArrayPublisher[] stagePublishers = new DoubleArrayPublisher[kMaxStages];
+    private static final long[][] samples = new long[kMaxStages][kSamples];
+    private static final long[] sampleCount = new long[kMaxStages];
+    //Time spent in each stage during the current loop (one run of a rate group)
+    private static final long[] loopStageTime = new long[kMaxStages];
+    //Longest run of each stage since it was last logged, and the log signal it goes to
+    private static final long[] stageMax = new long[kMaxStages];
+    private static final int[] stageLogs = new int[kMaxStages];
+    private static int stageCount = 0;
+
+    //Scratch space used when sorting samples for the percentiles, so the summary never allocates
+    private static final long[] sortScratch = new long[kSamples];
+    private static final double[][] stageSummary = new double[kMaxStages][3];
+
+    private static long loopStart = 0;
+    private static long lastSummary = 0;
+    private static long lastOverrunReport = 0;
+    private static long overrunCount = 0;
+
+    //Bytes allocated by each stage while allocation tracking is on (see AllocationAudit)
+    private static final long[] stageAllocated = new long[kMaxStages];
+    private static volatile com.sun.management.ThreadMXBean allocationCounter = null;
+    //The counter as of the start of the current loop, and what the robot thread had allocated then
+    //A loop counts everything it runs, so the runner between the stages is audited too
+    private static com.sun.management.ThreadMXBean loopCounter = null;
+    private static long loopAllocatedStart = 0;
+
+    //#ADDSTAGE
+    //This method registers a new stage and returns the handle used to time it
+    public static int addStage(String name) {
+        if (stageCount >= kMaxStages) {
+            throw new IllegalStateException("Too many profiler stages, increase kMaxStages");
+        }
+        stageNames[stageCount] = name;
+        stagePublishers[stageCount] = table.getDoubleArrayTopic("Profiler/" + name).publish();
+        stageLogs[stageCount] = DataLogger.addDouble("Profiler/" + name + "Ms");
+        return stageCount++;
+    }
+
+    //#RUN
+    //This method runs a call and records how long it took under the given stage
+    public static void run(int stage, Runnable call) {
+        if (allocationCounter != null) {
+            runCountingAllocations(stage, call);
+            return;
+        }
+        long start = System.nanoTime();
+        call.run();
+        record(stage, System.nanoTime() - start);
+    }
+
+    private static void runCountingAllocations(int stage, Runnable call) {
+        long thread = Thread.currentThread().getId();
+        long allocated = allocationCounter.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        call.run();
+        record(stage, System.nanoTime() - start);
+        stageAllocated[stage] += allocationCounter.getThreadAllocatedBytes(thread) - allocated;
+    }
+
+    //#TRACKALLOCATIONS
+    //This method turns on counting the bytes each stage allocates, and clears the counts
+    //Reading the counter costs a little time, so it is only meant for AllocationAudit and never on the field
+    public static void trackAllocations(boolean enabled) {
+        Arrays.fill(stageAllocated, 0L);
+        if (!enabled) {
+            allocationCounter = null;
+            return;
+        }
+        com.sun.management.ThreadMXBean counter = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        counter.setThreadAllocatedMemoryEnabled(true);
+        allocationCounter = counter;
+    }
+
+    //#GETSTAGES
+    //Registered stages, their names and the bytes they allocated since tracking was turned on
+    //A loop stage (Rate/<group>) counts its whole run, the stages it ran included
+    public static int getStageCount() {
+        return stageCount;
+    }
+
+    public static String getStageName(int stage) {
+        return stageNames[stage];
+    }
+
+    public static long getAllocatedBytes(int stage) {
+        return stageAllocated[stage];
+    }
+
+    //#RECORD
+    //This method stores a single duration for a stage
+    public static void record(int stage, long durationNs) {
+        samples[stage][(int) (sampleCount[stage] % kSamples)] = durationNs;
+        sampleCount[stage]++;
+        loopStageTime[stage] += durationNs;
+        if (durationNs > stageMax[stage]) stageMax[stage] = durationNs;
+    }
+
+    //#LOGSTAGES
+    //This method records the longest run of every stage since the last call to the match log (milliseconds)
+    //Call it once per logged loop, right before DataLogger.commit(), so a stage that ran twice in between is not lost
+    public static void logStages() {
+        for (int i = 0; i < stageCount; i++) {
+            DataLogger.setDouble(stageLogs[i], stageMax[i] / 1e6);
+            stageMax[i] = 0;
+        }
+    }
+
+    //#BEGINLOOP
+    //This method marks the start of a loop, every rate group run (and the main TimedRobot callback) is one
+    public static void beginLoop() {
+        loopStart = System.nanoTime();
+        Arrays.fill(loopStageTime, 0, stageCount, 0L);
+        loopCounter = allocationCounter;
+        if (loopCounter != null) loopAllocatedStart = loopCounter.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    //#ENDLOOP
+    //This method marks the end of a loop and records it under loopStage, checks it against its own period
+    //and publishes the summary when it is due, it returns how long the loop took
+    public static long endLoop(int loopStage, long budgetNs) {
+        long now = System.nanoTime();
+        long loopTime = now - loopStart;
+        if (loopCounter != null) {
+            stageAllocated[loopStage] += loopCounter.getThreadAllocatedBytes(Thread.currentThread().getId()) - loopAllocatedStart;
+        }
+
+        if (loopTime > budgetNs) {
+            overrunCount++;
+            if (now - lastOverrunReport >= kOverrunReportPeriodNs) {
+                lastOverrunReport = now;
+                reportOverrun(loopStage, loopTime, budgetNs);
+            }
+        }
+        record(loopStage, loopTime);
+
+        if (now - lastSummary >= kSummaryPeriodNs) {
+            lastSummary = now;
+            publishSummary();
+        }
+        return loopTime;
+    }
+
+    //#REPORTOVERRUN
+    //This method warns the driver station about an overrun and names the slowest stage of that loop
+    private static void reportOverrun(int loopStage, long loopTime, long budgetNs) {
+        int slowest = -1;
+        for (int i = 0; i < stageCount; i++) {
+            if (i == loopStage) continue;
+            if (slowest < 0 || loopStageTime[i] > loopStageTime[slowest]) slowest = i;
+        }
+        String message = stageNames[loopStage] + " overrun: " + toMillis(loopTime) + " ms of a " + toMillis(budgetNs) + " ms period";
+        if (slowest >= 0 && loopStageTime[slowest] > 0) {
+            message += ", slowest stage " + stageNames[slowest] + " (" + toMillis(loopStageTime[slowest]) + " ms)";
+        }
+        DriverStation.reportWarning(message, false);
+    }
+
+    //#PUBLISHSUMMARY
+    //This method pushes p50/p99/max (in microseconds) for every stage, and so every loop, to the dashboard
+    private static void publishSummary() {
+        for (int i = 0; i < stageCount; i++) {
+            summarize(samples[i], sampleCount[i], stageSummary[i]);
+            stagePublishers[i].set(stageSummary[i]);
+        }
+        overrunPublisher.set(overrunCount);
+    }
+
+    //#SUMMARIZE
+    //This method fills out with the p50, p99 and max of a ring buffer
+    private static void summarize(long[] ring, long count, double[] out) {
+        int n = (int) Math.min(count, kSamples);
+        if (n == 0) {
+            Arrays.fill(out, 0);
+            return;
+        }
+        System.arraycopy(ring, 0, sortScratch, 0, n);
+        Arrays.sort(sortScratch, 0, n);
+        out[0] = sortScratch[(n - 1) * 50 / 100] / 1000.0;
+        out[1] = sortScratch[(n - 1) * 99 / 100] / 1000.0;
+        out[2] = sortScratch[n - 1] / 1000.0;
+    }
+
+    private static double toMillis(long nanos) {
+        return Math.round(nanos / 10_000.0) / 100.0;
+    }
+}
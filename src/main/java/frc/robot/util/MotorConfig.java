@@ -0,0 +1,101 @@
+package frc.robot.util;
+
+import java.util.Objects;
+
+import com.revrobotics.CANSparkMax;
+
+public class MotorConfig {
+
+    //Bump this whenever a setting that is not part of the descriptor changes what gets flashed
+    public static final int kVersion = 1;
+
+    public final CANSparkMax motor;
+    public final String name;
+
+    //Output direction, only used when the motor is not a follower
+    boolean inverted = false;
+    //Leader to follow, null when the motor is driven directly
+    CANSparkMax leader = null;
+    boolean followInverted = false;
+
+    //Smart current limit in amps, 0 keeps the factory limit
+    int currentLimit = 0;
+
+    //Status frame periods handed to CanBudget (milliseconds, CanBudget.kUnused when never read)
+    int outputPeriodMs = CanBudget.kUnused;
+    int velocityPeriodMs = CanBudget.kUnused;
+    int positionPeriodMs = CanBudget.kUnused;
+
+    //Smart Motion gains and trapezoid limits for PID slot 0
+    boolean smartMotion = false;
+    double p = 0;
+    double ff = 0;
+    double maxVelocity = 0;
+    double maxAccel = 0;
+    double allowedError = 0;
+
+    //Hall sensor velocity measurement period (ms) and samples averaged, 0 keeps the factory 32 ms and 8 samples
+    int measurementPeriodMs = 0;
+    int averageDepth = 0;
+
+    public MotorConfig(CANSparkMax motor, String name) {
+        this.motor = motor;
+        this.name = name;
+    }
+
+    //#INVERTED
+    public MotorConfig inverted(boolean inverted) {
+        this.inverted = inverted;
+        return this;
+    }
+
+    //#FOLLOW
+    public MotorConfig follow(CANSparkMax leader, boolean invert) {
+        this.leader = leader;
+        this.followInverted = invert;
+        return this;
+    }
+
+    //#CURRENTLIMIT
+    public MotorConfig currentLimit(int amps) {
+        this.currentLimit = amps;
+        return this;
+    }
+
+    //#STATUSPERIODS
+    //Output (Status 0), velocity (Status 1) and position (Status 2) periods, see CanBudget.configure
+    public MotorConfig statusPeriods(int outputPeriodMs, int velocityPeriodMs, int positionPeriodMs) {
+        this.outputPeriodMs = outputPeriodMs;
+        this.velocityPeriodMs = velocityPeriodMs;
+        this.positionPeriodMs = positionPeriodMs;
+        return this;
+    }
+
+    //#SMARTMOTION
+    //Velocity loop P and FF, max velocity (RPM), max acceleration (RPM/s) and allowed error (rotations)
+    public MotorConfig smartMotion(double p, double ff, double maxVelocity, double maxAccel, double allowedError) {
+        this.smartMotion = true;
+        this.p = p;
+        this.ff = ff;
+        this.maxVelocity = maxVelocity;
+        this.maxAccel = maxAccel;
+        this.allowedError = allowedError;
+        return this;
+    }
+
+    //#VELOCITYFILTER
+    //Shorter measurement period and fewer averaged samples make the encoder velocity react faster, at the cost of more noise
+    public MotorConfig velocityFilter(int measurementPeriodMs, int averageDepth) {
+        this.measurementPeriodMs = measurementPeriodMs;
+        this.averageDepth = averageDepth;
+        return this;
+    }
+
+    //#HASH
+    //Hash of everything that ends up in the controller's flash, stored to know when a burn is needed
+    //Status frame periods are left out because the SPARK MAX does not keep them in flash
+    public int hash() {
+        return Objects.hash(kVersion, motor.getDeviceId(), inverted, leader == null ? -1 : leader.getDeviceId(), followInverted,
+            currentLimit, smartMotion, p, ff, maxVelocity, maxAccel, allowedError, measurementPeriodMs, averageDepth);
+    }
+}
@@ -0,0 +1,170 @@
+package frc.robot.util;
+
+import java.util.ArrayList;
+
+import com.revrobotics.CANSparkMax.FaultID;
+import com.revrobotics.REVLibError;
+import com.revrobotics.RelativeEncoder;
+import com.revrobotics.SparkMaxPIDController;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Preferences;
+import edu.wpi.first.wpilibj.Timer;
+
+public class MotorConfigManager {
+
+    //Hash of the config each controller was last flashed with is kept in Preferences, so it survives a reboot
+    private static final String kHashPrefix = "MotorConfigHash/";
+    //How often the controllers are checked for a reset (seconds)
+    private static final double kResetCheckPeriod = 1.0;
+
+    private static final ArrayList<MotorConfig> configs = new ArrayList<>();
+    private static double lastResetCheck = 0;
+
+    //#REGISTER
+    //This method adds a motor to be configured by applyAll()
+    public static void register(MotorConfig config) {
+        configs.add(config);
+    }
+
+    //#APPLYALL
+    //This method configures every registered motor at the same time, one thread per controller, and waits for them all
+    public static void applyAll() {
+        long start = System.nanoTime();
+        int count = configs.size();
+        boolean[] flashed = new boolean[count];
+        Thread[] threads = new Thread[count];
+
+        for (int i = 0; i < count; i++) {
+            MotorConfig config = configs.get(i);
+            boolean upToDate = Preferences.getInt(kHashPrefix + config.name, 0) == config.hash();
+            int index = i;
+            threads[i] = new Thread(() -> flashed[index] = apply(config, upToDate), "MotorConfig " + config.name);
+            threads[i].start();
+        }
+
+        int flashCount = 0;
+        for (int i = 0; i < count; i++) {
+            try {
+                threads[i].join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                DriverStation.reportError("Interrupted while configuring " + configs.get(i).name, false);
+            }
+            if (flashed[i]) {
+                Preferences.setInt(kHashPrefix + configs.get(i).name, configs.get(i).hash());
+                flashCount++;
+            }
+        }
+
+        DriverStation.reportWarning("Motor config: " + count + " controllers ready, " + flashCount + " flashed, in "
+            + (System.nanoTime() - start) / 1_000_000 + " ms", false);
+    }
+
+    //#APPLY
+    //This method brings one controller to its config and returns true if its flash was burned
+    private static boolean apply(MotorConfig config, boolean upToDate) {
+        boolean changed;
+        if (upToDate) {
+            //The flash already holds this config, only fix what reads back differently (a swapped controller for example)
+            changed = writeDifferences(config);
+        } else {
+            config.motor.restoreFactoryDefaults();
+            writeAll(config);
+            changed = true;
+        }
+
+        //Status frame periods are not kept in flash, so they are always written
+        CanBudget.configure(config.motor, config.outputPeriodMs, config.velocityPeriodMs, config.positionPeriodMs);
+
+        //The reset fault from power-up is cleared so checkForResets() only sees new ones
+        config.motor.clearFaults();
+
+        return changed && config.motor.burnFlash() == REVLibError.kOk;
+    }
+
+    //#WRITEALL
+    //This method writes every setting of a config, used after restoring factory defaults
+    private static void writeAll(MotorConfig config) {
+        if (config.leader != null) {
+            config.motor.follow(config.leader, config.followInverted);
+        } else {
+            config.motor.setInverted(config.inverted);
+        }
+
+        if (config.currentLimit > 0) config.motor.setSmartCurrentLimit(config.currentLimit);
+
+        if (config.smartMotion) {
+            SparkMaxPIDController pid = config.motor.getPIDController();
+            pid.setP(config.p, 0);
+            pid.setFF(config.ff, 0);
+            pid.setSmartMotionMaxVelocity(config.maxVelocity, 0);
+            pid.setSmartMotionMaxAccel(config.maxAccel, 0);
+            pid.setSmartMotionAllowedClosedLoopError(config.allowedError, 0);
+        }
+
+        if (config.measurementPeriodMs > 0) {
+            RelativeEncoder encoder = config.motor.getEncoder();
+            encoder.setMeasurementPeriod(config.measurementPeriodMs);
+            encoder.setAverageDepth(config.averageDepth);
+        }
+    }
+
+    //#WRITEDIFFERENCES
+    //This method reads the settings back from the controller and only writes the ones that differ
+    private static boolean writeDifferences(MotorConfig config) {
+        boolean changed = false;
+
+        if (config.leader != null) {
+            //The controller cannot report which leader it follows or with which invert, so follow() is always sent
+            //Flash is only burned when it was not following at all
+            if (!config.motor.isFollower()) changed = true;
+            config.motor.follow(config.leader, config.followInverted);
+        } else if (config.motor.getInverted() != config.inverted) {
+            config.motor.setInverted(config.inverted);
+            changed = true;
+        }
+
+        //The current limit cannot be read back either, setting it does not write flash so it is always sent
+        if (config.currentLimit > 0) config.motor.setSmartCurrentLimit(config.currentLimit);
+
+        if (config.smartMotion) {
+            SparkMaxPIDController pid = config.motor.getPIDController();
+            if (differs(pid.getP(0), config.p)) { pid.setP(config.p, 0); changed = true; }
+            if (differs(pid.getFF(0), config.ff)) { pid.setFF(config.ff, 0); changed = true; }
+            if (differs(pid.getSmartMotionMaxVelocity(0), config.maxVelocity)) { pid.setSmartMotionMaxVelocity(config.maxVelocity, 0); changed = true; }
+            if (differs(pid.getSmartMotionMaxAccel(0), config.maxAccel)) { pid.setSmartMotionMaxAccel(config.maxAccel, 0); changed = true; }
+            if (differs(pid.getSmartMotionAllowedClosedLoopError(0), config.allowedError)) { pid.setSmartMotionAllowedClosedLoopError(config.allowedError, 0); changed = true; }
+        }
+
+        if (config.measurementPeriodMs > 0) {
+            RelativeEncoder encoder = config.motor.getEncoder();
+            if (encoder.getMeasurementPeriod() != config.measurementPeriodMs) { encoder.setMeasurementPeriod(config.measurementPeriodMs); changed = true; }
+            if (encoder.getAverageDepth() != config.averageDepth) { encoder.setAverageDepth(config.averageDepth); changed = true; }
+        }
+
+        return changed;
+    }
+
+    //Parameters come back as floats, so compare with a little room
+    private static boolean differs(double actual, double wanted) {
+        return Math.abs(actual - wanted) > Math.abs(wanted) * 1e-4 + 1e-9;
+    }
+
+    //#CHECKFORRESETS
+    //This method looks for controllers that rebooted (a brownout for example) and puts back the settings flash does not keep
+    public static void checkForResets() {
+        double now = Timer.getFPGATimestamp();
+        if (now - lastResetCheck < kResetCheckPeriod) return;
+        lastResetCheck = now;
+
+        for (int i = 0; i < configs.size(); i++) {
+            MotorConfig config = configs.get(i);
+            if (config.motor.getStickyFault(FaultID.kHasReset)) {
+                CanBudget.setPeriods(config.motor, config.outputPeriodMs, config.velocityPeriodMs, config.positionPeriodMs);
+                config.motor.clearFaults();
+                DriverStation.reportWarning(config.name + " reset, status frames restored", false);
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package frc.robot.util;
+
+import edu.wpi.first.wpilibj.TimedRobot;
+
+public class RateGroup {
+
+    //Maximum number of jobs in one group
+    private static final int kMaxJobs = 16;
+
+    private final String name;
+    private final double period;
+    private final double offset;
+    private final long periodNs;
+
+    //Profiler stage for the whole group (each run is one LoopProfiler loop), and one for each job
+    private final int groupStage;
+    private final int[] stages = new int[kMaxJobs];
+    private final Runnable[] jobs = new Runnable[kMaxJobs];
+    private int jobCount = 0;
+
+    private long overrunCount = 0;
+    private final int overrunLog;
+
+    //period and offset are in seconds, the offset moves every run of the group later by that much
+    public RateGroup(String name, double period, double offset) {
+        this.name = name;
+        this.period = period;
+        this.offset = offset;
+        periodNs = (long) (period * 1e9);
+        groupStage = LoopProfiler.addStage("Rate/" + name);
+        overrunLog = DataLogger.addDouble("Rate/" + name + "Overruns");
+    }
+
+    //#ADD
+    //This method adds a job to the end of the group, jobs run in the order they were added
+    //The Runnable is kept, so pass a method reference once here and nothing is created while running
+    public RateGroup add(String stageName, Runnable job) {
+        if (jobCount >= kMaxJobs) {
+            throw new IllegalStateException("Too many jobs in rate group " + name + ", increase kMaxJobs");
+        }
+        stages[jobCount] = LoopProfiler.addStage(stageName);
+        jobs[jobCount] = job;
+        jobCount++;
+        return this;
+    }
+
+    //#START
+    //This method hands the group to the robot's TimedRobot loop, call it once from robotInit after everything is set up
+    public void start(TimedRobot robot) {
+        robot.addPeriodic(this::run, period, offset);
+    }
+
+    //#RUN
+    //Runs every job once on the robot thread as one profiler loop, which warns if it took longer than the group's period
+    private void run() {
+        LoopProfiler.beginLoop();
+        for (int i = 0; i < jobCount; i++) {
+            LoopProfiler.run(stages[i], jobs[i]);
+        }
+        if (LoopProfiler.endLoop(groupStage, periodNs) > periodNs) {
+            overrunCount++;
+            DataLogger.setDouble(overrunLog, overrunCount);
+        }
+    }
+
+    //#GETTERS
+    public double getPeriod() {
+        return period;
+    }
+
+    public long getOverrunCount() {
+        return overrunCount;
+    }
+}
@@ -0,0 +1,89 @@
+package frc.robot.util;
+
+import edu.wpi.first.networktables.BooleanPublisher;
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj.Timer;
+
+public class Telemetry {
+
+    //Maximum number of signals that can be registered
+    private static final int kMaxSignals = 64;
+
+    //Signals go in the SmartDashboard table so existing dashboard layouts keep working
+    private static final NetworkTable table = NetworkTableInstance.getDefault().getTable("SmartDashboard");
+
+    //Publisher handles, only one of the two is set for each signal
+    private static final DoublePublisher[] numberPublishers = new DoublePublisher[kMaxSignals];
+    private static final BooleanPublisher[] booleanPublishers = new BooleanPublisher[kMaxSignals];
+
+    //Latest value of each signal (booleans are stored as 1 or 0)
+    private static final double[] values = new double[kMaxSignals];
+    //Last value that was actually written to NetworkTables
+    private static final double[] sentValues = new double[kMaxSignals];
+    private static final boolean[] hasSent = new boolean[kMaxSignals];
+    //Smallest change that is worth publishing
+    private static final double[] epsilons = new double[kMaxSignals];
+    //Minimum time between writes, and when the last write happened (seconds)
+    private static final double[] periods = new double[kMaxSignals];
+    private static final double[] sentTimes = new double[kMaxSignals];
+    private static int signalCount = 0;
+
+    //#ADDNUMBER
+    //This method registers a number signal and returns the handle used to update it
+    public static int addNumber(String key, double epsilon, double rateHz) {
+        int handle = addSignal(epsilon, rateHz);
+        numberPublishers[handle] = table.getDoubleTopic(key).publish();
+        return handle;
+    }
+
+    //#ADDBOOLEAN
+    //This method registers a boolean signal and returns the handle used to update it
+    public static int addBoolean(String key, double rateHz) {
+        int handle = addSignal(0.5, rateHz);
+        booleanPublishers[handle] = table.getBooleanTopic(key).publish();
+        return handle;
+    }
+
+    private static int addSignal(double epsilon, double rateHz) {
+        if (signalCount >= kMaxSignals) {
+            throw new IllegalStateException("Too many telemetry signals, increase kMaxSignals");
+        }
+        epsilons[signalCount] = epsilon;
+        periods[signalCount] = 1.0 / rateHz;
+        return signalCount++;
+    }
+
+    //#SETNUMBER
+    //This method stores the newest value of a number signal, it is published by periodic()
+    public static void setNumber(int handle, double value) {
+        values[handle] = value;
+    }
+
+    //#SETBOOLEAN
+    //This method stores the newest value of a boolean signal, it is published by periodic()
+    public static void setBoolean(int handle, boolean value) {
+        values[handle] = value ? 1 : 0;
+    }
+
+    //#PERIODIC
+    //This method writes every signal that is due for its rate and has changed by more than its epsilon
+    public static void periodic() {
+        double now = Timer.getFPGATimestamp();
+
+        for (int i = 0; i < signalCount; i++) {
+            if (hasSent[i] && now - sentTimes[i] < periods[i]) continue;
+            if (hasSent[i] && Math.abs(values[i] - sentValues[i]) <= epsilons[i]) continue;
+
+            if (numberPublishers[i] != null) {
+                numberPublishers[i].set(values[i]);
+            } else {
+                booleanPublishers[i].set(values[i] != 0);
+            }
+            sentValues[i] = values[i];
+            sentTimes[i] = now;
+            hasSent[i] = true;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package frc.robot.util;
+
+public class VisionFrame {
+
+    //Most AprilTags kept from one frame
+    public static final int kMaxTags = 8;
+
+    //Robot time (FPGA seconds) at which the camera captured the frame
+    public double captureTime;
+    //Pipeline plus capture latency reported by the limelight (milliseconds)
+    public double latencyMs;
+
+    //Raw target values, same meaning as the limelight tx, ty, ta, tv and tid entries
+    public double tx;
+    public double ty;
+    public double ta;
+    public double tv;
+    public double tid;
+
+    //Every AprilTag in the frame from the limelight rawfiducials entry: ID and its own tx and ty (degrees)
+    public int tagCount;
+    public final int[] tagIDs = new int[kMaxTags];
+    public final double[] tagTx = new double[kMaxTags];
+    public final double[] tagTy = new double[kMaxTags];
+
+    //Robot pose from the limelight botpose_wpiblue entry (meters and degrees), only valid when hasPose is true
+    public boolean hasPose;
+    public double poseX;
+    public double poseY;
+    public double poseYaw;
+
+    //#COPYFROM
+    //This method copies every value of another frame into this one
+    public void copyFrom(VisionFrame other) {
+        captureTime = other.captureTime;
+        latencyMs = other.latencyMs;
+        tx = other.tx;
+        ty = other.ty;
+        ta = other.ta;
+        tv = other.tv;
+        tid = other.tid;
+        tagCount = other.tagCount;
+        System.arraycopy(other.tagIDs, 0, tagIDs, 0, tagCount);
+        System.arraycopy(other.tagTx, 0, tagTx, 0, tagCount);
+        System.arraycopy(other.tagTy, 0, tagTy, 0, tagCount);
+        hasPose = other.hasPose;
+        poseX = other.poseX;
+        poseY = other.poseY;
+        poseYaw = other.poseYaw;
+    }
+}
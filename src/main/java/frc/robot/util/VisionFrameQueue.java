@@ -0,0 +1,62 @@
+package frc.robot.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class VisionFrameQueue {
+
+    //Preallocated frames, the producer fills them in place so nothing is allocated per frame
+    private final VisionFrame[] slots;
+    private final int mask;
+
+    //Index of the next frame to read, moved by the consumer as it reads and by the producer when it drops the oldest frame
+    private final AtomicLong head = new AtomicLong();
+    //Index of the next frame to write (only written by the producer)
+    private volatile long tail = 0;
+
+    private volatile long droppedFrames = 0;
+
+    //#VISIONFRAMEQUEUE
+    //The capacity is rounded up to a power of two so indexes can be masked
+    public VisionFrameQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+        slots = new VisionFrame[size];
+        for (int i = 0; i < size; i++) slots[i] = new VisionFrame();
+        mask = size - 1;
+    }
+
+    //#CLAIM
+    //Producer side: returns the frame to fill in
+    //When the queue is full the oldest frame is dropped to make room, the newest one is the one worth keeping
+    public VisionFrame claim() {
+        while (true) {
+            long oldest = head.get();
+            if (tail - oldest < slots.length) break;
+            if (head.compareAndSet(oldest, oldest + 1)) droppedFrames = droppedFrames + 1;
+        }
+        return slots[(int) (tail & mask)];
+    }
+
+    //#PUBLISH
+    //Producer side: makes the frame returned by claim() visible to the consumer
+    public void publish() {
+        tail = tail + 1;
+    }
+
+    //#POLL
+    //Consumer side: copies the oldest frame into out and returns false if the queue was empty
+    //If the producer dropped that frame during the copy it may have been overwritten, so the copy is done again with the next one
+    public boolean poll(VisionFrame out) {
+        while (true) {
+            long oldest = head.get();
+            if (oldest == tail) return false;
+            out.copyFrom(slots[(int) (oldest & mask)]);
+            if (head.compareAndSet(oldest, oldest + 1)) return true;
+        }
+    }
+
+    //#GETDROPPEDFRAMES
+    //Number of oldest frames the producer threw away because the consumer fell behind
+    public long getDroppedFrames() {
+        return droppedFrames;
+    }
+}
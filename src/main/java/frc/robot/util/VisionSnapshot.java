@@ -0,0 +1,44 @@
+package frc.robot.util;
+
+import java.lang.invoke.VarHandle;
+
+public class VisionSnapshot {
+
+    //Odd while the writer is in the middle of a publish, bumped twice per publish
+    private volatile long sequence = 0;
+    //Only touched inside a publish, readers copy it out and check the sequence did not move
+    private final VisionTarget shared = new VisionTarget();
+
+    //#PUBLISH
+    //Writer side: replaces the snapshot with target, never waits on the reader
+    public void publish(VisionTarget target) {
+        long start = sequence;
+        sequence = start + 1;
+        //Keeps the copy below from being moved ahead of the odd sequence
+        VarHandle.releaseFence();
+        shared.copyFrom(target);
+        sequence = start + 2;
+    }
+
+    //#READ
+    //Reader side: copies the newest snapshot into out, trying again if a publish ran during the copy
+    //The writer only holds the snapshot for a copy of a few fields, so a retry is rare and short
+    public void read(VisionTarget out) {
+        while (true) {
+            long before = sequence;
+            if ((before & 1) == 0) {
+                out.copyFrom(shared);
+                //Keeps the copy above from being moved after the second sequence read
+                VarHandle.acquireFence();
+                if (sequence == before) return;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    //#GETSEQUENCE
+    //Changes every time a new snapshot is published, so a reader can tell if it has seen it already
+    public long getSequence() {
+        return sequence;
+    }
+}
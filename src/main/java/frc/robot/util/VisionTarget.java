@@ -0,0 +1,43 @@
+package frc.robot.util;
+
+public class VisionTarget {
+
+    //Number of frames processed so far, 0 until the first frame arrives
+    public long frameCount;
+
+    //Robot time (FPGA seconds) at which the camera captured the frame, and the latency reported with it (milliseconds)
+    public double captureTime;
+    public double latencyMs;
+
+    //Raw target values of the primary tag, same meaning as the limelight tx, ty, ta, tv and tid entries
+    public double tx;
+    public double ty;
+    public double ta;
+    public double tv;
+    public double tid;
+
+    //Distance to the primary tag from every visible tag (inches), and the low-pass filtered distance and tx
+    public double distance;
+    public double filteredDistance;
+    public double filteredTx;
+
+    //Cubic turn power for the horizontal offset (LimeLight.turnPower)
+    public double turnPower;
+
+    //#COPYFROM
+    //This method copies every value of another target into this one
+    public void copyFrom(VisionTarget other) {
+        frameCount = other.frameCount;
+        captureTime = other.captureTime;
+        latencyMs = other.latencyMs;
+        tx = other.tx;
+        ty = other.ty;
+        ta = other.ta;
+        tv = other.tv;
+        tid = other.tid;
+        distance = other.distance;
+        filteredDistance = other.filteredDistance;
+        filteredTx = other.filteredTx;
+        turnPower = other.turnPower;
+    }
+}
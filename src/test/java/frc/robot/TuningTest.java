@@ -0,0 +1,67 @@
+package frc.robot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Properties;
+
+import org.junit.jupiter.api.Test;
+
+class TuningTest {
+
+    private static Tuning.Source source(String... keyValues) {
+        Properties values = new Properties();
+        for (int i = 0; i < keyValues.length; i += 2) values.setProperty(keyValues[i], keyValues[i + 1]);
+        return new Tuning.Source(values);
+    }
+
+    //#GET
+    @Test
+    void valuesInRangeAreUsed() {
+        Tuning.Source s = source("vision.lensAngle", "30", "vision.lensHeight", " 20 ");
+        Tuning.VisionConfig vision = new Tuning.VisionConfig(s);
+        assertEquals(30, vision.lensAngle);
+        assertEquals(20, vision.lensHeight);
+        assertFalse(s.failed());
+    }
+
+    @Test
+    void missingValuesUseTheDefaultWithoutAnError() {
+        Tuning.Source s = source();
+        Tuning.VisionConfig vision = new Tuning.VisionConfig(s);
+        assertEquals(Constants.limelightAngle, vision.lensAngle);
+        assertEquals(Constants.limelightHeight, vision.lensHeight);
+        assertFalse(s.failed());
+    }
+
+    //Each bad value falls back to its own default, the good ones next to it are still used
+    @Test
+    void outOfRangeValuesFallBackOneByOne() {
+        Tuning.Source s = source("vision.lensAngle", "120", "vision.lensHeight", "20", "vision.desiredDist", "NaN");
+        Tuning.VisionConfig vision = new Tuning.VisionConfig(s);
+        assertEquals(Constants.limelightAngle, vision.lensAngle);
+        assertEquals(20, vision.lensHeight);
+        assertEquals(36.0, vision.desiredDist);
+        assertTrue(s.failed());
+    }
+
+    @Test
+    void textThatIsNotANumberFallsBack() {
+        Tuning.Source s = source("vision.lensHeight", "tall");
+        assertEquals(Constants.limelightHeight, new Tuning.VisionConfig(s).lensHeight);
+        assertTrue(s.failed());
+    }
+
+    //#GETINT
+    @Test
+    void portsOutOfRangeOrUsedTwiceAreErrors() {
+        Tuning.Source outOfRange = source("hardware.leftPID", "70");
+        assertEquals(Constants.leftPID, new Tuning.HardwareConfig(outOfRange).leftPID);
+        assertTrue(outOfRange.failed());
+
+        Tuning.Source twice = source("hardware.leftPID", Integer.toString(Constants.rightPID));
+        new Tuning.HardwareConfig(twice);
+        assertTrue(twice.failed());
+    }
+}
@@ -0,0 +1,165 @@
+package frc.robot.sim;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import edu.wpi.first.wpilibj.simulation.XboxControllerSim;
+import frc.robot.util.LoopProfiler;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingFile;
+
+public class AllocationAudit {
+
+    //Length of one simulated robot loop (seconds)
+    private static final double kStep = 0.02;
+    //Loops run before counting, so the JIT has compiled the hot path and every lazy setup is done
+    private static final int kWarmupLoops = 1000;
+    //Loops counted
+    private static final int kMeasuredLoops = 5000;
+    //Number of allocating call sites printed
+    private static final int kReportedSites = 15;
+    //Every rate group run is a profiler loop whose stage counts all of it (its jobs and the group runner),
+    //so those are what is added up and checked, the job stages show where inside a group it allocates
+    private static final String kGroupPrefix = "Rate/";
+    //The main TimedRobot callback: mode changes, SmartDashboard and LiveWindow, framework code
+    private static final String kFrameworkStage = "Rate/Main";
+
+    //#RUN
+    //This method drives the sticks and buttons through teleop while counting what the robot thread allocates
+    //Returns true when no rate group run (our code) allocated anything after warm up
+    public static boolean run(Thread robotThread) throws Exception {
+        XboxControllerSim controller = new XboxControllerSim(0);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        for (int i = 0; i < kWarmupLoops; i++) step(controller, i);
+
+        LoopProfiler.trackAllocations(true);
+        long gcCount = gcCount();
+        long gcTime = gcTime();
+        long allocated = threads.getThreadAllocatedBytes(robotThread.getId());
+
+        Path recordingFile = Files.createTempFile("allocation-audit", ".jfr");
+        Map<String, long[]> sites;
+        try (Recording recording = new Recording()) {
+            recording.enable("jdk.ObjectAllocationInNewTLAB").withStackTrace();
+            recording.enable("jdk.ObjectAllocationOutsideTLAB").withStackTrace();
+            recording.start();
+
+            for (int i = 0; i < kMeasuredLoops; i++) step(controller, kWarmupLoops + i);
+
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+
+        allocated = threads.getThreadAllocatedBytes(robotThread.getId()) - allocated;
+        gcCount = gcCount() - gcCount;
+        gcTime = gcTime() - gcTime;
+        sites = allocationSites(recordingFile, robotThread.getName());
+        Files.deleteIfExists(recordingFile);
+
+        return report(allocated, gcCount, gcTime, sites);
+    }
+
+    //#STEP
+    //One loop of driver input: the sticks sweep and the intake and pivot buttons are pressed in turns
+    private static void step(XboxControllerSim controller, int loop) {
+        double t = loop * kStep;
+        controller.setLeftY(0.8 * Math.sin(t * 0.7));
+        controller.setRightX(0.6 * Math.sin(t * 1.3));
+        controller.setXButton(loop % 200 < 50);
+        controller.setRightTriggerAxis(loop % 200 >= 100 && loop % 200 < 120 ? 1 : 0);
+        DriverStationSim.notifyNewData();
+        SimHooks.stepTiming(kStep);
+    }
+
+    //#ALLOCATIONSITES
+    //This method groups the sampled allocations of the robot thread by the robot code method that caused them
+    //Returned values are {samples, bytes}
+    private static Map<String, long[]> allocationSites(Path recordingFile, String threadName) throws Exception {
+        Map<String, long[]> sites = new HashMap<>();
+        for (RecordedEvent event : RecordingFile.readAllEvents(recordingFile)) {
+            if (event.getThread() == null || !threadName.equals(event.getThread().getJavaName())) continue;
+            if (event.getStackTrace() == null) continue;
+
+            List<RecordedFrame> frames = event.getStackTrace().getFrames();
+            if (frames.isEmpty()) continue;
+            String top = describe(frames.get(0));
+            String caller = "(framework)";
+            for (RecordedFrame frame : frames) {
+                if (frame.getMethod().getType().getName().startsWith("frc.robot.")) {
+                    caller = describe(frame);
+                    break;
+                }
+            }
+
+            String site = caller + " -> " + top + " [" + event.getClass("objectClass").getName() + "]";
+            long[] totals = sites.computeIfAbsent(site, key -> new long[2]);
+            totals[0]++;
+            totals[1] += event.getLong("allocationSize");
+        }
+        return sites;
+    }
+
+    private static String describe(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+
+    //#REPORT
+    //This method prints bytes per loop for every stage, the rest of the loop and the top allocating call sites
+    private static boolean report(long allocated, long gcCount, long gcTime, Map<String, long[]> sites) {
+        System.out.println("Allocation audit over " + kMeasuredLoops + " teleop loops (after " + kWarmupLoops + " warm up loops)");
+        System.out.println(String.format("  %-45s %12s", "Stage", "bytes/loop"));
+
+        long groupTotal = 0;
+        boolean clean = true;
+        for (int i = 0; i < LoopProfiler.getStageCount(); i++) {
+            String name = LoopProfiler.getStageName(i);
+            long bytes = LoopProfiler.getAllocatedBytes(i);
+            boolean framework = name.equals(kFrameworkStage);
+            if (name.startsWith(kGroupPrefix) && !framework) {
+                groupTotal += bytes;
+                if (bytes > 0) clean = false;
+            }
+            System.out.println(String.format("  %-45s %12.1f%s", name, (double) bytes / kMeasuredLoops,
+                bytes > 0 && !framework ? "  <- allocates" : ""));
+        }
+        //TimedRobot, LiveWindow, the simulation models and the stick updates above are not robot code
+        System.out.println(String.format("  %-45s %12.1f", "(framework and simulation)", (double) (allocated - groupTotal) / kMeasuredLoops));
+        System.out.println(String.format("  %-45s %12.1f", "Total", (double) allocated / kMeasuredLoops));
+        System.out.println("  Garbage collections: " + gcCount + " (" + gcTime + " ms)");
+
+        List<Map.Entry<String, long[]>> sorted = new ArrayList<>(sites.entrySet());
+        sorted.sort((a, b) -> Long.compare(b.getValue()[1], a.getValue()[1]));
+        System.out.println("Sampled allocating call sites (robot code caller -> allocating method [type]):");
+        for (int i = 0; i < Math.min(kReportedSites, sorted.size()); i++) {
+            long[] totals = sorted.get(i).getValue();
+            System.out.println(String.format("  %8d B in %5d samples  %s", totals[1], totals[0], sorted.get(i).getKey()));
+        }
+
+        System.out.println(clean ? "Robot code is allocation free" : "Robot code allocates, see above");
+        return clean;
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) count += Math.max(0, gc.getCollectionCount());
+        return count;
+    }
+
+    private static long gcTime() {
+        long time = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) time += Math.max(0, gc.getCollectionTime());
+        return time;
+    }
+}
@@ -0,0 +1,46 @@
+package frc.robot.sim;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import frc.robot.Robot;
+
+//Runs by itself in a small heap JVM: ./gradlew auditAllocations
+@Tag("allocation")
+class AllocationAuditTest {
+
+    //#TELEOPISALLOCATIONFREE
+    //Starts the whole robot in teleop and fails if any rate group allocates once warmed up
+    @Test
+    void teleopIsAllocationFree() throws Exception {
+        assertTrue(HAL.initialize(500, 0), "Failed to initialize the HAL");
+
+        //Time only moves when the audit steps it
+        SimHooks.pauseTiming();
+        DriverStationSim.setDsAttached(true);
+        DriverStationSim.setAutonomous(false);
+        DriverStationSim.setEnabled(true);
+        DriverStationSim.notifyNewData();
+
+        Robot robot = new Robot();
+        Thread robotThread = new Thread(robot::startCompetition, "Robot");
+        robotThread.setDaemon(true);
+        robotThread.start();
+        //Wait for robotInit and simulationInit to finish before stepping
+        SimHooks.waitForProgramStart();
+
+        boolean clean;
+        try {
+            clean = AllocationAudit.run(robotThread);
+        } finally {
+            robot.endCompetition();
+            robotThread.join(1000);
+        }
+        assertTrue(clean, "Robot code allocates in steady state, see the audit output");
+    }
+}
@@ -0,0 +1,75 @@
+package frc.robot.subsystems;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import frc.robot.SensorSnapshot;
+
+class MotionHealthTest {
+
+    @BeforeAll
+    static void startHal() {
+        assertTrue(HAL.initialize(500, 0), "Failed to initialize the HAL");
+        //Time only moves when a loop steps it, 10 ms like the control group
+        SimHooks.pauseTiming();
+    }
+
+    //Control loops with the intake at this output, drawing this current (amps) at this velocity (RPM)
+    //The simulated intake is overwritten after the snapshot, before MotionHealth reads it
+    private static void loops(int count, double output, double current, double velocity) {
+        for (int i = 0; i < count; i++) {
+            SimHooks.stepTiming(0.01);
+            SensorSnapshot.sample();
+            Manipulator.outputs.intakeOutput = output;
+            Manipulator.inputs.intakeCurrent = current;
+            Manipulator.inputs.intakeVelocity = velocity;
+            MotionHealth.update();
+        }
+    }
+
+    //#FILTER
+    @Test
+    void medianThrowsOutASingleBadSample() {
+        loops(50, 0, 0, 1000);
+        assertEquals(1000, MotionHealth.getVelocity(MotionHealth.kIntake), 0.01);
+
+        //One bad CAN frame never reaches the filtered velocity
+        loops(1, 0, 0, 100_000);
+        assertEquals(1000, MotionHealth.getVelocity(MotionHealth.kIntake), 0.01);
+        loops(2, 0, 0, 1000);
+        assertEquals(1000, MotionHealth.getVelocity(MotionHealth.kIntake), 0.01);
+
+        //A real change gets through once it is most of the median window
+        loops(3, 0, 0, 2000);
+        assertTrue(MotionHealth.getVelocity(MotionHealth.kIntake) > 1000);
+    }
+
+    //#CHECKSTALL
+    //The intake has no position frame, so a jam is raised on output, current and velocity alone
+    @Test
+    void jamIsRaisedAfterItsTimeAndClearedAfterTheClearTime() {
+        //Idle, so nothing is raised while the filters settle on a stopped, loaded roller
+        loops(50, 0, 40, 0);
+        assertFalse(MotionHealth.hasEvent(MotionHealth.kIntake, MotionHealth.kJam));
+
+        //Driven: raised 0.15 s in
+        loops(10, 0.5, 40, 0);
+        assertFalse(MotionHealth.hasEvent(MotionHealth.kIntake, MotionHealth.kJam));
+        loops(10, 0.5, 40, 0);
+        assertTrue(MotionHealth.hasEvent(MotionHealth.kIntake, MotionHealth.kJam));
+        //The rollers jam, they never stall
+        assertFalse(MotionHealth.hasEvent(MotionHealth.kIntake, MotionHealth.kStall));
+
+        //Cleared: stays raised for 0.5 s after the current drops
+        loops(40, 0.5, 0, 0);
+        assertTrue(MotionHealth.hasEvent(MotionHealth.kIntake, MotionHealth.kJam));
+        loops(20, 0.5, 0, 0);
+        assertFalse(MotionHealth.hasEvent(MotionHealth.kIntake, MotionHealth.kJam));
+    }
+}
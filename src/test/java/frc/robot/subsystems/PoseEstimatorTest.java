@@ -0,0 +1,112 @@
+package frc.robot.subsystems;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.util.Units;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import frc.robot.SensorSnapshot;
+
+class PoseEstimatorTest {
+
+    private static final double kDelta = 1e-9;
+
+    @BeforeAll
+    static void startHal() {
+        assertTrue(HAL.initialize(500, 0), "Failed to initialize the HAL");
+        //Time only moves when a loop steps it, 10 ms like the control group
+        SimHooks.pauseTiming();
+    }
+
+    @BeforeEach
+    void startAtOrigin() {
+        DriveTrain.leftDistance = 0;
+        DriveTrain.rightDistance = 0;
+        PoseEstimator.resetPose(0, 0, 0);
+    }
+
+    //One control loop with the drive sides at these distances (inches)
+    private static void loop(double leftInches, double rightInches) {
+        SimHooks.stepTiming(0.01);
+        SensorSnapshot.sample();
+        DriveTrain.leftDistance = leftInches;
+        DriveTrain.rightDistance = rightInches;
+        PoseEstimator.update();
+    }
+
+    //#ADDVISIONMEASUREMENT
+    @Test
+    void correctionAtTheCaptureTimeIsReplayedToNow() {
+        double captureTime = 0;
+        double capturedX = 0;
+        for (int i = 1; i <= 50; i++) {
+            loop(i, i);
+            if (i == 25) {
+                captureTime = SensorSnapshot.getTimestamp();
+                capturedX = PoseEstimator.getX();
+            }
+        }
+        double odometryX = PoseEstimator.getX();
+        assertEquals(Units.inchesToMeters(50), odometryX, kDelta);
+
+        //The camera saw the robot 0.5 m further along than odometry thought, 30% of that is taken
+        PoseEstimator.addVisionMeasurement(capturedX + 0.5, 0, 0, captureTime);
+        assertEquals(odometryX + 0.15, PoseEstimator.getX(), kDelta);
+        assertEquals(0, PoseEstimator.getY(), kDelta);
+        assertEquals(0, PoseEstimator.getHeading(), kDelta);
+    }
+
+    @Test
+    void headingCorrectionTurnsTheReplayedPath() {
+        double captureTime = 0;
+        double capturedX = 0;
+        double capturedY = 0;
+        double capturedHeading = 0;
+        for (int i = 1; i <= 50; i++) {
+            loop(i, i * 1.1);
+            if (i == 25) {
+                captureTime = SensorSnapshot.getTimestamp();
+                capturedX = PoseEstimator.getX();
+                capturedY = PoseEstimator.getY();
+                capturedHeading = PoseEstimator.getHeading();
+            }
+        }
+        double odometryHeading = PoseEstimator.getHeading();
+        double odometryY = PoseEstimator.getY();
+
+        //10% of a 0.2 rad heading error and no position error, the path after the capture is turned by that much
+        PoseEstimator.addVisionMeasurement(capturedX, capturedY, capturedHeading + 0.2, captureTime);
+        assertEquals(odometryHeading + 0.02, PoseEstimator.getHeading(), kDelta);
+        assertTrue(PoseEstimator.getY() > odometryY, "the replayed path did not turn with the heading");
+    }
+
+    @Test
+    void firstVisionPoseIsTakenWhole() {
+        PoseEstimator.clearPose();
+        loop(1, 1);
+        loop(2, 2);
+        PoseEstimator.addVisionMeasurement(2, 3, 1, SensorSnapshot.getTimestamp());
+        assertTrue(PoseEstimator.isKnown());
+        assertEquals(2, PoseEstimator.getX(), kDelta);
+        assertEquals(3, PoseEstimator.getY(), kDelta);
+        assertEquals(1, PoseEstimator.getHeading(), kDelta);
+    }
+
+    @Test
+    void jumpsAndFramesOlderThanTheHistoryAreIgnored() {
+        loop(1, 1);
+        loop(2, 2);
+        double x = PoseEstimator.getX();
+
+        PoseEstimator.addVisionMeasurement(x + 3, 0, 0, SensorSnapshot.getTimestamp());
+        assertEquals(x, PoseEstimator.getX(), kDelta);
+
+        PoseEstimator.addVisionMeasurement(x + 0.5, 0, 0, SensorSnapshot.getTimestamp() - 1);
+        assertEquals(x, PoseEstimator.getX(), kDelta);
+    }
+}
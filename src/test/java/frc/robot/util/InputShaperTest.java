@@ -0,0 +1,62 @@
+package frc.robot.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+class InputShaperTest {
+
+    private static final double kDelta = 1e-9;
+
+    //#DEADBAND
+    @Test
+    void deadbandZeroesTheCenterAndRescalesTheRest() {
+        InputShaper shaper = new InputShaper().deadband(0.1);
+        assertEquals(0, shaper.apply(0.05, 0.02), kDelta);
+        assertEquals(0, shaper.apply(-0.1, 0.02), kDelta);
+        //No jump at the edge, and full stick is still full output
+        assertEquals(0.5, shaper.apply(0.55, 0.02), kDelta);
+        assertEquals(-1, shaper.apply(-1, 0.02), kDelta);
+    }
+
+    //#EXPO
+    @Test
+    void expoBlendsLinearAndCubic() {
+        assertEquals(0.125, new InputShaper().cubic().apply(0.5, 0.02), kDelta);
+        assertEquals(0.5 * 0.5 + 0.5 * 0.125, new InputShaper().expo(0.5).apply(0.5, 0.02), kDelta);
+        assertEquals(0.5, new InputShaper().expo(0).apply(0.5, 0.02), kDelta);
+        //Out of range amounts are clamped to a pure cube
+        assertEquals(0.125, new InputShaper().expo(3).apply(0.5, 0.02), kDelta);
+    }
+
+    //#SLEWRATE
+    @Test
+    void slewRateLimitsTheChangePerSecond() {
+        InputShaper shaper = new InputShaper().slewRate(2);
+        assertEquals(0.04, shaper.apply(1, 0.02), kDelta);
+        assertEquals(0.08, shaper.apply(1, 0.02), kDelta);
+        assertEquals(0.04, shaper.apply(-1, 0.02), kDelta);
+
+        shaper.reset(0);
+        assertEquals(-0.1, shaper.apply(-1, 0.05), kDelta);
+    }
+
+    //#CHAIN
+    @Test
+    void stagesRunInTheOrderTheyWereAdded() {
+        InputShaper shaper = new InputShaper().deadband(0.1).cubic().scale(0.8);
+        assertEquals(0.125 * 0.8, shaper.apply(0.55, 0.02), kDelta);
+
+        //Scaling before the deadband moves where the deadband cuts in
+        InputShaper scaledFirst = new InputShaper().scale(0.5).deadband(0.1);
+        assertEquals(0, scaledFirst.apply(0.15, 0.02), kDelta);
+    }
+
+    @Test
+    void tooManyStagesThrows() {
+        InputShaper shaper = new InputShaper();
+        for (int i = 0; i < 8; i++) shaper.scale(1);
+        assertThrows(IllegalStateException.class, () -> shaper.scale(1));
+    }
+}
@@ -0,0 +1,79 @@
+package frc.robot.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class VisionFrameQueueTest {
+
+    private static void offer(VisionFrameQueue queue, double value) {
+        VisionFrame frame = queue.claim();
+        frame.captureTime = value;
+        frame.tx = value;
+        frame.ty = value;
+        queue.publish();
+    }
+
+    //#POLL
+    @Test
+    void framesComeOutOldestFirst() {
+        VisionFrameQueue queue = new VisionFrameQueue(4);
+        VisionFrame out = new VisionFrame();
+        assertFalse(queue.poll(out));
+
+        for (int i = 0; i < 3; i++) offer(queue, i);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(queue.poll(out));
+            assertEquals(i, out.captureTime);
+        }
+        assertFalse(queue.poll(out));
+        assertEquals(0, queue.getDroppedFrames());
+    }
+
+    //#CLAIM
+    @Test
+    void fullQueueDropsTheOldestFrame() {
+        //Rounded up to 4 slots
+        VisionFrameQueue queue = new VisionFrameQueue(3);
+        VisionFrame out = new VisionFrame();
+
+        for (int i = 0; i < 6; i++) offer(queue, i);
+        assertEquals(2, queue.getDroppedFrames());
+        for (int i = 2; i < 6; i++) {
+            assertTrue(queue.poll(out));
+            assertEquals(i, out.captureTime);
+        }
+        assertFalse(queue.poll(out));
+    }
+
+    //Producer and consumer on their own threads: every frame is either read once, whole and in order, or counted as dropped
+    @Test
+    void concurrentFramesAreReadWholeOrDropped() throws InterruptedException {
+        final int frames = 200_000;
+        VisionFrameQueue queue = new VisionFrameQueue(8);
+        Thread producer = new Thread(() -> {
+            for (int i = 1; i <= frames; i++) offer(queue, i);
+        }, "Producer");
+
+        VisionFrame out = new VisionFrame();
+        long read = 0;
+        double last = 0;
+        producer.start();
+        //One more pass after the producer is done, for the frames it published since the last poll
+        boolean producing = true;
+        while (producing) {
+            producing = producer.isAlive();
+            while (queue.poll(out)) {
+                read++;
+                assertEquals(out.captureTime, out.tx);
+                assertEquals(out.captureTime, out.ty);
+                assertTrue(out.captureTime > last, "frames out of order");
+                last = out.captureTime;
+            }
+        }
+        producer.join();
+        assertEquals(frames, read + queue.getDroppedFrames());
+    }
+}
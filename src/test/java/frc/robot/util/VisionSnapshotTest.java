@@ -0,0 +1,88 @@
+package frc.robot.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class VisionSnapshotTest {
+
+    //Sets every field of a target to the same value, so a torn copy shows up as fields that disagree
+    private static void fill(VisionTarget target, long value) {
+        target.frameCount = value;
+        target.captureTime = value;
+        target.latencyMs = value;
+        target.tx = value;
+        target.ty = value;
+        target.ta = value;
+        target.tv = value;
+        target.tid = value;
+        target.distance = value;
+        target.filteredDistance = value;
+        target.filteredTx = value;
+        target.turnPower = value;
+    }
+
+    private static void assertWhole(VisionTarget target) {
+        double value = target.frameCount;
+        assertEquals(value, target.captureTime);
+        assertEquals(value, target.latencyMs);
+        assertEquals(value, target.tx);
+        assertEquals(value, target.ty);
+        assertEquals(value, target.ta);
+        assertEquals(value, target.tv);
+        assertEquals(value, target.tid);
+        assertEquals(value, target.distance);
+        assertEquals(value, target.filteredDistance);
+        assertEquals(value, target.filteredTx);
+        assertEquals(value, target.turnPower);
+    }
+
+    //#PUBLISH
+    @Test
+    void readReturnsTheNewestPublish() {
+        VisionSnapshot snapshot = new VisionSnapshot();
+        VisionTarget target = new VisionTarget();
+        VisionTarget out = new VisionTarget();
+
+        long before = snapshot.getSequence();
+        fill(target, 7);
+        snapshot.publish(target);
+        assertNotEquals(before, snapshot.getSequence());
+        //Even, nobody is in the middle of a publish
+        assertEquals(0, snapshot.getSequence() & 1);
+
+        fill(target, 8);
+        snapshot.publish(target);
+        snapshot.read(out);
+        assertEquals(8, out.frameCount);
+        assertWhole(out);
+    }
+
+    //#READ
+    //The worker publishes as fast as it can while the reader copies: every copy is one whole publish, never older than the last
+    @Test
+    void concurrentReadsAreNeverTorn() throws InterruptedException {
+        final long publishes = 500_000;
+        VisionSnapshot snapshot = new VisionSnapshot();
+        Thread writer = new Thread(() -> {
+            VisionTarget target = new VisionTarget();
+            for (long i = 1; i <= publishes; i++) {
+                fill(target, i);
+                snapshot.publish(target);
+            }
+        }, "Writer");
+
+        VisionTarget out = new VisionTarget();
+        long last = 0;
+        writer.start();
+        while (last < publishes) {
+            snapshot.read(out);
+            assertWhole(out);
+            assertTrue(out.frameCount >= last, "snapshot went back in time");
+            last = out.frameCount;
+        }
+        writer.join();
+    }
+}